@@ -1,10 +1,29 @@
 package org.dfpl.dbp.rtree.team_7.CompareCases;
 
+import org.dfpl.dbp.rtree.team_7.ConcurrentRTree;
+import org.dfpl.dbp.rtree.team_7.FlatRTree;
+import org.dfpl.dbp.rtree.team_7.HilbertRTree;
+import org.dfpl.dbp.rtree.team_7.HilbertSplitPolicy;
+import org.dfpl.dbp.rtree.team_7.InsertionPolicy;
+import org.dfpl.dbp.rtree.team_7.KnnJoin;
+import org.dfpl.dbp.rtree.team_7.LinearSplitPolicy;
+import org.dfpl.dbp.rtree.team_7.MappedRTree;
+import org.dfpl.dbp.rtree.team_7.OffHeapRTree;
 import org.dfpl.dbp.rtree.team_7.Point;
+import org.dfpl.dbp.rtree.team_7.QuadraticSplitPolicy;
+import org.dfpl.dbp.rtree.team_7.RStarSplitPolicy;
 import org.dfpl.dbp.rtree.team_7.RTree;
 import org.dfpl.dbp.rtree.team_7.RTreeImpl;
+import org.dfpl.dbp.rtree.team_7.RTreeNode;
+import org.dfpl.dbp.rtree.team_7.SpatialJoin;
 import org.dfpl.dbp.rtree.team_7.Rectangle;
+import org.dfpl.dbp.rtree.team_7.RectangleEntry;
+import org.dfpl.dbp.rtree.team_7.RectangleRTree;
+import org.dfpl.dbp.rtree.team_7.SpatialRelation;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 
 //main class for testing performance of structures
@@ -16,6 +35,15 @@ public class ComparingTest {
     static Rectangle searchTestRect = new Rectangle(new Point(0, 0), new Point(5, 5));
     static Point searchTestPoint = new Point(95, 95);
     static int kTest = 5000;
+    // RTree fan-out 스윕 벤치마크에서 비교할 노드당 최대 엔트리 수
+    static int[] fanOutTests = {4, 8, 16, 32, 64, 128};
+    // 메모리 비교에 쓸 포인트 개수 (측정 오차를 줄이려고 크게 잡음)
+    static int memoryTestCnt = 200000;
+    // 배치 KNN 비교에 쓸 질의(source) 개수와 k
+    static int knnBatchCnt = 10000;
+    static int knnBatchK = 10;
+    // 거리 조인 비교에 쓸 거리
+    static double joinDistance = 2;
 
     public static void main(String[] args) {
         //기본 제공된 포인트들
@@ -67,6 +95,71 @@ public class ComparingTest {
         deletePoints = inputPoints;
         */
         //printCompareResults(pointList, pointList);
+        // 실행 인자로 "fanout"을 주면 RTree fan-out 스윕만 수행
+        if (args.length > 0 && args[0].equals("fanout")) {
+            printFanOutSweep(inputPoints, deletePoints);
+            return;
+        }
+        // 실행 인자로 "memory"를 주면 RTreeImpl / FlatRTree / OffHeapRTree의 포인트당 힙 사용량만 비교
+        if (args.length > 0 && args[0].equals("memory")) {
+            printMemoryCompare(memoryTestCnt);
+            return;
+        }
+        // 실행 인자로 "persist"를 주면 트리 재구축과 저장된 파일 매핑(open) 시간만 비교
+        if (args.length > 0 && args[0].equals("persist")) {
+            printPersistCompare(memoryTestCnt);
+            return;
+        }
+        // 실행 인자로 "concurrent"를 주면 ConcurrentRTree의 스레드 수별 검색 처리량만 측정
+        if (args.length > 0 && args[0].equals("concurrent")) {
+            printConcurrentSweep(inputPoints);
+            return;
+        }
+        // 실행 인자로 "knnbatch"를 주면 nearest 반복 호출과 nearestBatch의 처리 시간만 비교
+        if (args.length > 0 && args[0].equals("knnbatch")) {
+            printNearestBatchCompare(inputPoints, knnBatchCnt);
+            return;
+        }
+        // 실행 인자로 "join"을 주면 점마다 search를 부르는 방식과 SpatialJoin의 거리 조인 시간만 비교
+        if (args.length > 0 && args[0].equals("join")) {
+            printJoinCompare(inputPoints, joinDistance);
+            return;
+        }
+        // 실행 인자로 "allknn"을 주면 점마다 nearest를 부르는 방식과 KnnJoin.allNearest의 시간만 비교
+        if (args.length > 0 && args[0].equals("allknn")) {
+            printAllNearestCompare(inputPoints, knnBatchK);
+            return;
+        }
+        // 실행 인자로 "count"를 주면 search 결과를 세는 방식과 RTreeImpl.count의 범위 개수 세기 시간만 비교
+        if (args.length > 0 && args[0].equals("count")) {
+            printCountCompare(memoryTestCnt);
+            return;
+        }
+        // 실행 인자로 "leafindex"를 주면 좌표 → 리프 해시 인덱스 유무에 따른 삭제 시간만 비교
+        if (args.length > 0 && args[0].equals("leafindex")) {
+            printLeafIndexCompare(memoryTestCnt);
+            return;
+        }
+        // 실행 인자로 "update"를 주면 점 이동을 delete + add로 할 때와 update로 할 때의 처리 시간만 비교
+        if (args.length > 0 && args[0].equals("update")) {
+            printUpdateCompare(memoryTestCnt / 2, memoryTestCnt);
+            return;
+        }
+        // 실행 인자로 "hilbert"를 주면 RTreeImpl과 HilbertRTree의 삽입 / 범위 검색 시간과 노드 채움률만 비교
+        if (args.length > 0 && args[0].equals("hilbert")) {
+            printHilbertCompare(memoryTestCnt);
+            return;
+        }
+        // 실행 인자로 "rect"를 주면 사각형 객체를 RectangleRTree에 넣었을 때와 ArrayList로 훑을 때의 검색 시간만 비교
+        if (args.length > 0 && args[0].equals("rect")) {
+            printRectangleCompare(memoryTestCnt / 4);
+            return;
+        }
+        // 실행 인자로 "split"을 주면 RTree 분할 전략 비교만 수행
+        if (args.length > 0 && args[0].equals("split")) {
+            printSplitPolicyCompare(inputPoints);
+            return;
+        }
         printCompareResults(inputPoints, deletePoints);
     }
 
@@ -97,6 +190,10 @@ public class ComparingTest {
         LinkedList<Point> linkedList = new LinkedList<>();
 
         TimeStamp rt = TestRTree(testInput, testDelete);
+        long rtBulk = TestRTreeBulkLoad(testInput);
+        TimeStamp rtBatch = TestRTreeBatch(testInput, testDelete);
+        TimeStamp frt = TestRTree(new FlatRTree(), testInput, testDelete);
+        TimeStamp ohrt = TestRTree(new OffHeapRTree(), testInput, testDelete);
         TimeStamp arl = TestList(arrayList, testInput, testDelete);
         TimeStamp lkl = TestList(linkedList, testInput, testDelete);
         TimeStamp kdt = TestKDTree(testInput, testDelete);
@@ -113,30 +210,44 @@ public class ComparingTest {
 
         System.out.println();
         System.out.println("insert time - RTree:\t\t" + rt.insertTime + "ns");
+        System.out.println("insert time - RTree(STR):\t" + rtBulk + "ns");
+        System.out.println("insert time - RTree(addAll):\t" + rtBatch.insertTime + "ns");
+        System.out.println("insert time - RTree(Flat):\t" + frt.insertTime + "ns");
+        System.out.println("insert time - RTree(OffHeap):\t" + ohrt.insertTime + "ns");
         System.out.println("insert time - ArrayList:\t" + arl.insertTime + "ns");
         System.out.println("insert time - LinkedList:\t" + lkl.insertTime + "ns");
         System.out.println("insert time - KDTree:\t\t" + kdt.insertTime + "ns");
         System.out.println("insert time - QuadTree:\t\t" + qt.insertTime + "ns");
         System.out.println();
         System.out.println("search time - RTree:\t\t" + rt.searchTime + "ns");
+        System.out.println("search time - RTree(parallel):\t" + rtBatch.searchTime + "ns");
+        System.out.println("search time - RTree(Flat):\t" + frt.searchTime + "ns");
+        System.out.println("search time - RTree(OffHeap):\t" + ohrt.searchTime + "ns");
         System.out.println("search time - ArrayList:\t" + arl.searchTime + "ns");
         System.out.println("search time - LinkedList:\t" + lkl.searchTime + "ns");
         System.out.println("search time - KDTree:\t\t" + kdt.searchTime + "ns");
         System.out.println("search time - QuadTree:\t\t" + qt.searchTime + "ns");
         System.out.println();
         System.out.println("nearest time - RTree:\t\t" + rt.nearestTime + "ns");
+        System.out.println("nearest time - RTree(Flat):\t" + frt.nearestTime + "ns");
+        System.out.println("nearest time - RTree(OffHeap):\t" + ohrt.nearestTime + "ns");
         System.out.println("nearest time - ArrayList:\t" + arl.nearestTime + "ns");
         System.out.println("nearest time - LinkedList:\t" + lkl.nearestTime + "ns");
         System.out.println("nearest time - KDTree:\t\t" + kdt.nearestTime + "ns");
         System.out.println("nearest time - QuadTree:\t" + qt.nearestTime + "ns");
         System.out.println();
         System.out.println("delete time - RTree:\t\t" + rt.deleteTime + "ns");
+        System.out.println("delete time - RTree(deleteAll):\t" + rtBatch.deleteTime + "ns");
+        System.out.println("delete time - RTree(Flat):\t" + frt.deleteTime + "ns");
+        System.out.println("delete time - RTree(OffHeap):\t" + ohrt.deleteTime + "ns");
         System.out.println("delete time - ArrayList:\t" + arl.deleteTime + "ns");
         System.out.println("delete time - LinkedList:\t" + lkl.deleteTime + "ns");
         System.out.println("delete time - KDTree:\t\t" + kdt.deleteTime + "ns");
         System.out.println("delete time - QuadTree:\t\t" + qt.deleteTime + "ns");
         System.out.println();
         System.out.println("whole time - RTree:\t\t\t" + rt.wholeTime + "ns");
+        System.out.println("whole time - RTree(Flat):\t" + frt.wholeTime + "ns");
+        System.out.println("whole time - RTree(OffHeap):\t" + ohrt.wholeTime + "ns");
         System.out.println("whole time - ArrayList:\t\t" + arl.wholeTime + "ns");
         System.out.println("whole time - LinkedList:\t" + lkl.wholeTime + "ns");
         System.out.println("whole time - KDTree:\t\t" + kdt.wholeTime + "ns");
@@ -144,14 +255,606 @@ public class ComparingTest {
         System.out.println("\n--------------------------------------------------------------------------------------------------------------\n");
     }
 
+    // RTree의 fan-out(노드당 최대 엔트리 수)만 바꿔가며 같은 데이터로 측정
+    static void printFanOutSweep(List<Point> testInput, List<Point> testDelete) {
+        TimeStamp[] results = new TimeStamp[fanOutTests.length];
+        for (int i = 0; i < fanOutTests.length; i++) {
+            results[i] = TestRTree(new RTreeImpl(false, fanOutTests[i]), testInput, testDelete);
+        }
+
+        System.out.println("Fan-out Sweep Results:\n" +
+                "\ttestInput: " + testInput.size() + "\n" +
+                "\trange search range: \t" + searchTestRect.toString() + "\n" +
+                "\tnearest search source: \t" + searchTestPoint.toString() + "\n" +
+                "\tnearest search count: " + kTest);
+        System.out.println();
+        System.out.println("fan-out\tinsert(ns)\tsearch(ns)\tnearest(ns)\tdelete(ns)\twhole(ns)");
+        for (int i = 0; i < fanOutTests.length; i++) {
+            TimeStamp ts = results[i];
+            System.out.println(fanOutTests[i] + "\t\t" + ts.insertTime + "\t\t" + ts.searchTime + "\t\t" +
+                    ts.nearestTime + "\t\t" + ts.deleteTime + "\t\t" + ts.wholeTime);
+        }
+        System.out.println("\n--------------------------------------------------------------------------------------------------------------\n");
+    }
+
+    // 같은 포인트들을 RTreeImpl(객체 그래프), FlatRTree(primitive 배열), OffHeapRTree(direct buffer)에 넣었을 때의 힙 사용량 비교
+    static void printMemoryCompare(int pointCnt) {
+        Random random = new Random();
+        double w = createRange.getRightBottom().getX() - createRange.getLeftTop().getX();
+        double h = createRange.getRightBottom().getY() - createRange.getLeftTop().getY();
+
+        // 포인트 자체의 메모리는 빼고 보기 위해 좌표만 배열로 들고 있는다
+        double[] xs = new double[pointCnt];
+        double[] ys = new double[pointCnt];
+        for (int i = 0; i < pointCnt; i++) {
+            xs[i] = createRange.getLeftTop().getX() + random.nextDouble() * w;
+            ys[i] = createRange.getLeftTop().getY() + random.nextDouble() * h;
+        }
+
+        System.out.println("Memory Results:\n" +
+                "\tpoints: " + pointCnt);
+        System.out.println();
+
+        for (int fanOut : new int[]{RTreeNode.MAX, 16}) {
+            long before = usedHeap();
+            RTree objectTree = new RTreeImpl(false, fanOut);
+            for (int i = 0; i < pointCnt; i++) objectTree.add(new Point(xs[i], ys[i]));
+            long objectBytes = usedHeap() - before;
+
+            before = usedHeap();
+            RTree flatTree = new FlatRTree(fanOut);
+            for (int i = 0; i < pointCnt; i++) flatTree.add(new Point(xs[i], ys[i]));
+            long flatBytes = usedHeap() - before;
+
+            // OffHeapRTree의 노드 페이지는 direct buffer에 있으므로 힙에는 거의 잡히지 않는다
+            before = usedHeap();
+            RTree offHeapTree = new OffHeapRTree(fanOut);
+            for (int i = 0; i < pointCnt; i++) offHeapTree.add(new Point(xs[i], ys[i]));
+            long offHeapBytes = usedHeap() - before;
+
+            System.out.println("fan-out " + fanOut);
+            System.out.println("heap - RTree:\t\t" + objectBytes + " bytes (" + (objectBytes / pointCnt) + " bytes/point)");
+            System.out.println("heap - RTree(Flat):\t" + flatBytes + " bytes (" + (flatBytes / pointCnt) + " bytes/point)");
+            System.out.println("heap - RTree(OffHeap):\t" + offHeapBytes + " bytes (" + (offHeapBytes / pointCnt) + " bytes/point)");
+            // 측정이 끝날 때까지 트리들이 GC되지 않도록 유지
+            if (objectTree.isEmpty() || flatTree.isEmpty() || offHeapTree.isEmpty()) System.out.println("empty tree");
+        }
+        System.out.println("\n--------------------------------------------------------------------------------------------------------------\n");
+    }
+
+    // 같은 포인트로 RTreeImpl을 다시 만드는 시간과, 저장해 둔 파일을 MappedRTree로 여는 시간 비교
+    static void printPersistCompare(int pointCnt) {
+        Random random = new Random();
+        double w = createRange.getRightBottom().getX() - createRange.getLeftTop().getX();
+        double h = createRange.getRightBottom().getY() - createRange.getLeftTop().getY();
+        List<Point> points = new ArrayList<>(pointCnt);
+        for (int i = 0; i < pointCnt; i++) {
+            points.add(new Point(createRange.getLeftTop().getX() + random.nextDouble() * w,
+                    createRange.getLeftTop().getY() + random.nextDouble() * h));
+        }
+
+        try {
+            Path file = Files.createTempFile("rtree", ".idx");
+            file.toFile().deleteOnExit();
+
+            long startTime = System.nanoTime();
+            RTreeImpl rebuilt = new RTreeImpl(false);
+            for (Point point : points) rebuilt.add(point);
+            long rebuildTime = System.nanoTime() - startTime;
+
+            rebuilt.save(file);
+
+            startTime = System.nanoTime();
+            MappedRTree mapped = MappedRTree.open(file);
+            long openTime = System.nanoTime() - startTime;
+
+            startTime = System.nanoTime();
+            Iterator<Point> iterator = mapped.search(searchTestRect);
+            while (iterator.hasNext()) iterator.next();
+            long searchTime = System.nanoTime() - startTime;
+
+            startTime = System.nanoTime();
+            iterator = mapped.nearest(searchTestPoint, kTest);
+            while (iterator.hasNext()) iterator.next();
+            long nearestTime = System.nanoTime() - startTime;
+
+            System.out.println("Persist Results:\n" +
+                    "\tpoints: " + pointCnt + "\n" +
+                    "\tfile size: " + Files.size(file) + " bytes");
+            System.out.println();
+            System.out.println("rebuild time - RTree:\t\t" + rebuildTime + "ns");
+            System.out.println("open time - RTree(Mapped):\t" + openTime + "ns");
+            System.out.println("search time - RTree(Mapped):\t" + searchTime + "ns");
+            System.out.println("nearest time - RTree(Mapped):\t" + nearestTime + "ns");
+        } catch (IOException e) {
+            System.out.println("persist test failed: " + e.getMessage());
+        }
+        System.out.println("\n--------------------------------------------------------------------------------------------------------------\n");
+    }
+
+    // 같은 ConcurrentRTree에 스레드 수를 늘려가며 range search + KNN을 동시에 돌렸을 때의 처리량
+    static void printConcurrentSweep(List<Point> testInput) {
+        ConcurrentRTree tree = new ConcurrentRTree();
+        tree.addAll(testInput);
+
+        int queriesPerThread = 2000;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.println("Concurrent Results:\n" +
+                "\ttestInput: " + testInput.size() + "\n" +
+                "\tqueries per thread: " + queriesPerThread + "\n" +
+                "\tavailable processors: " + cores);
+        System.out.println();
+        System.out.println("threads\ttime(ns)\tqueries/s");
+        for (int threads = 1; threads <= Math.max(8, cores); threads *= 2) {
+            Thread[] workers = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                final long seed = t;
+                workers[t] = new Thread(() -> {
+                    Random random = new Random(seed);
+                    for (int q = 0; q < queriesPerThread; q++) {
+                        double x = createRange.getLeftTop().getX() + random.nextDouble() * 190;
+                        double y = createRange.getLeftTop().getY() + random.nextDouble() * 190;
+                        Iterator<Point> it = tree.search(new Rectangle(new Point(x, y), new Point(x + 10, y + 10)));
+                        while (it.hasNext()) it.next();
+                        it = tree.nearest(new Point(x, y), 10);
+                        while (it.hasNext()) it.next();
+                    }
+                });
+            }
+
+            long startTime = System.nanoTime();
+            for (Thread worker : workers) worker.start();
+            try {
+                for (Thread worker : workers) worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long time = System.nanoTime() - startTime;
+            long qps = (long) threads * queriesPerThread * 2 * 1_000_000_000L / Math.max(1, time);
+            System.out.println(threads + "\t\t" + time + "\t" + qps);
+        }
+        System.out.println("\n--------------------------------------------------------------------------------------------------------------\n");
+    }
+
+    // 같은 source들에 대해 nearest를 하나씩 부를 때와 nearestBatch로 한 번에 처리할 때의 시간 비교
+    static void printNearestBatchCompare(List<Point> testInput, int sourceCnt) {
+        RTreeImpl tree = new RTreeImpl(false);
+        tree.addAll(testInput);
+
+        Random random = new Random();
+        double w = createRange.getRightBottom().getX() - createRange.getLeftTop().getX();
+        double h = createRange.getRightBottom().getY() - createRange.getLeftTop().getY();
+        List<Point> sources = new ArrayList<>(sourceCnt);
+        for (int i = 0; i < sourceCnt; i++) {
+            sources.add(new Point(createRange.getLeftTop().getX() + random.nextDouble() * w,
+                    createRange.getLeftTop().getY() + random.nextDouble() * h));
+        }
+
+        long startTime = System.nanoTime();
+        for (Point source : sources) {
+            Iterator<Point> iterator = tree.nearest(source, knnBatchK);
+            while (iterator.hasNext()) iterator.next();
+        }
+        long loopTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        tree.nearestBatch(sources, knnBatchK);
+        long batchTime = System.nanoTime() - startTime;
+
+        System.out.println("Batch KNN Results:\n" +
+                "\ttestInput: " + testInput.size() + "\n" +
+                "\tsources: " + sourceCnt + "\n" +
+                "\tk: " + knnBatchK + "\n" +
+                "\tavailable processors: " + Runtime.getRuntime().availableProcessors());
+        System.out.println();
+        System.out.println("nearest time - RTree(loop):\t" + loopTime + "ns");
+        System.out.println("nearest time - RTree(batch):\t" + batchTime + "ns");
+        System.out.println("\n--------------------------------------------------------------------------------------------------------------\n");
+    }
+
+    // 두 점 집합의 거리 조인: 한쪽 점마다 search를 부르는 방식 vs 두 트리를 함께 내려가는 SpatialJoin
+    static void printJoinCompare(List<Point> testInput, double distance) {
+        Random random = new Random();
+        double w = createRange.getRightBottom().getX() - createRange.getLeftTop().getX();
+        double h = createRange.getRightBottom().getY() - createRange.getLeftTop().getY();
+        List<Point> other = new ArrayList<>(testInput.size());
+        for (int i = 0; i < testInput.size(); i++) {
+            other.add(new Point(createRange.getLeftTop().getX() + random.nextDouble() * w,
+                    createRange.getLeftTop().getY() + random.nextDouble() * h));
+        }
+
+        RTreeImpl left = new RTreeImpl(false);
+        RTreeImpl right = new RTreeImpl(false);
+        left.addAll(testInput);
+        right.addAll(other);
+
+        // 점마다 search 후 거리로 거르기
+        long startTime = System.nanoTime();
+        long loopCount = 0;
+        for (Point p : testInput) {
+            Iterator<Point> it = right.search(new Rectangle(new Point(p.getX() - distance, p.getY() - distance),
+                    new Point(p.getX() + distance, p.getY() + distance)));
+            while (it.hasNext()) {
+                if (p.distance(it.next()) <= distance) loopCount++;
+            }
+        }
+        long loopTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        long joinCount = 0;
+        Iterator<?> it = SpatialJoin.distanceJoin(left, right, distance);
+        while (it.hasNext()) {
+            it.next();
+            joinCount++;
+        }
+        long joinTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        long parallelCount = SpatialJoin.distanceJoinStream(left, right, distance, true).count();
+        long parallelTime = System.nanoTime() - startTime;
+
+        System.out.println("Join Results:\n" +
+                "\tleft: " + testInput.size() + "\n" +
+                "\tright: " + other.size() + "\n" +
+                "\tdistance: " + distance + "\n" +
+                "\tpairs: " + loopCount + " / " + joinCount + " / " + parallelCount);
+        System.out.println();
+        System.out.println("join time - search loop:\t" + loopTime + "ns");
+        System.out.println("join time - SpatialJoin:\t" + joinTime + "ns");
+        System.out.println("join time - SpatialJoin(par):\t" + parallelTime + "ns");
+        System.out.println("\n--------------------------------------------------------------------------------------------------------------\n");
+    }
+
+    // 모든 점의 k-최근접 이웃: 점마다 nearest 호출 vs 리프 단위 all-KNN (순차 / 병렬)
+    static void printAllNearestCompare(List<Point> testInput, int k) {
+        RTreeImpl tree = new RTreeImpl(false);
+        tree.addAll(testInput);
+
+        long startTime = System.nanoTime();
+        for (Point p : testInput) {
+            Iterator<Point> it = tree.nearest(p, k + 1);   // 자기 자신 포함
+            while (it.hasNext()) it.next();
+        }
+        long loopTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        KnnJoin.allNearest(tree, k, false, (p, neighbors) -> { });
+        long leafTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        KnnJoin.allNearest(tree, k, true, (p, neighbors) -> { });
+        long parallelTime = System.nanoTime() - startTime;
+
+        System.out.println("All-KNN Results:\n" +
+                "\ttestInput: " + testInput.size() + "\n" +
+                "\tk: " + k);
+        System.out.println();
+        System.out.println("all-knn time - nearest loop:\t" + loopTime + "ns");
+        System.out.println("all-knn time - KnnJoin:\t\t" + leafTime + "ns");
+        System.out.println("all-knn time - KnnJoin(par):\t" + parallelTime + "ns");
+        System.out.println("\n--------------------------------------------------------------------------------------------------------------\n");
+    }
+
+    static void printCountCompare(int pointCnt) {
+        Random random = new Random();
+        List<Point> points = new ArrayList<>(pointCnt);
+        for (int i = 0; i < pointCnt; i++) {
+            points.add(new Point(random.nextDouble() * 1000, random.nextDouble() * 1000));
+        }
+        RTreeImpl tree = new RTreeImpl(false, 32);
+        tree.addAll(points);
+
+        List<Rectangle> queries = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            double x = random.nextDouble() * 800;
+            double y = random.nextDouble() * 800;
+            double size = 10 + random.nextDouble() * 190;
+            queries.add(new Rectangle(new Point(x, y), new Point(x + size, y + size)));
+        }
+
+        long startTime = System.nanoTime();
+        long drained = 0;
+        for (Rectangle q : queries) {
+            Iterator<Point> it = tree.search(q);
+            while (it.hasNext()) {
+                it.next();
+                drained++;
+            }
+        }
+        long searchTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        long counted = 0;
+        for (Rectangle q : queries) {
+            counted += tree.count(q);
+        }
+        long countTime = System.nanoTime() - startTime;
+
+        System.out.println("Range Count Results:\n" +
+                "\tpoints: " + tree.size() + "\n" +
+                "\tqueries: " + queries.size() + " (matched " + counted + ", search " + drained + ")");
+        System.out.println();
+        System.out.println("count time - search + drain:\t" + searchTime + "ns");
+        System.out.println("count time - RTree.count:\t" + countTime + "ns");
+        System.out.println("\n--------------------------------------------------------------------------------------------------------------\n");
+    }
+
+    static void printLeafIndexCompare(int pointCnt) {
+        Random random = new Random();
+        List<Point> points = new ArrayList<>(pointCnt);
+        for (int i = 0; i < pointCnt; i++) {
+            points.add(new Point(random.nextDouble() * 1000, random.nextDouble() * 1000));
+        }
+        List<Point> deletes = new ArrayList<>(points.subList(0, pointCnt / 2));
+        Collections.shuffle(deletes, random);
+
+        String[] names = {"no index", "leaf index"};
+        long[] deleteTimes = new long[names.length];
+        for (int i = 0; i < names.length; i++) {
+            RTreeImpl tree = new RTreeImpl(false, 16);
+            tree.setLeafIndexEnabled(i == 1);
+            tree.addAll(points);
+
+            long startTime = System.nanoTime();
+            for (Point p : deletes) {
+                tree.delete(p);
+            }
+            deleteTimes[i] = System.nanoTime() - startTime;
+        }
+
+        System.out.println("Leaf Index Results:\n" +
+                "\tpoints: " + pointCnt + "\n" +
+                "\tdeletes: " + deletes.size());
+        System.out.println();
+        for (int i = 0; i < names.length; i++) {
+            System.out.println("delete time - RTree(" + names[i] + "):\t" + deleteTimes[i] + "ns");
+        }
+        System.out.println("\n--------------------------------------------------------------------------------------------------------------\n");
+    }
+
+    // 차량처럼 조금씩 움직이는 점들: 매번 임의의 점 하나를 작은 거리만큼 옮긴다
+    static void printUpdateCompare(int pointCnt, int moveCnt) {
+        Random random = new Random();
+        List<Point> points = new ArrayList<>(pointCnt);
+        for (int i = 0; i < pointCnt; i++) {
+            points.add(new Point(random.nextDouble() * 1000, random.nextDouble() * 1000));
+        }
+        int[] movers = new int[moveCnt];
+        double[] dx = new double[moveCnt];
+        double[] dy = new double[moveCnt];
+        for (int i = 0; i < moveCnt; i++) {
+            movers[i] = random.nextInt(pointCnt);
+            dx[i] = (random.nextDouble() - 0.5) * 2;
+            dy[i] = (random.nextDouble() - 0.5) * 2;
+        }
+
+        String[] names = {"delete+add", "update"};
+        long[] times = new long[names.length];
+        for (int t = 0; t < names.length; t++) {
+            RTreeImpl tree = new RTreeImpl(false, 16);
+            tree.addAll(points);
+            List<Point> current = new ArrayList<>(points);
+
+            long startTime = System.nanoTime();
+            for (int i = 0; i < moveCnt; i++) {
+                Point from = current.get(movers[i]);
+                Point to = new Point(from.getX() + dx[i], from.getY() + dy[i]);
+                if (t == 0) {
+                    tree.delete(from);
+                    tree.add(to);
+                } else {
+                    tree.update(from, to);
+                }
+                current.set(movers[i], to);
+            }
+            times[t] = System.nanoTime() - startTime;
+        }
+
+        System.out.println("Update Results:\n" +
+                "\tpoints: " + pointCnt + "\n" +
+                "\tmoves: " + moveCnt);
+        System.out.println();
+        for (int t = 0; t < names.length; t++) {
+            System.out.println("move time - RTree(" + names[t] + "):\t" + times[t] + "ns");
+        }
+        System.out.println("\n--------------------------------------------------------------------------------------------------------------\n");
+    }
+
+    static void printHilbertCompare(int pointCnt) {
+        Random random = new Random();
+        List<Point> points = new ArrayList<>(pointCnt);
+        for (int i = 0; i < pointCnt; i++) {
+            points.add(new Point(random.nextDouble() * 1000, random.nextDouble() * 1000));
+        }
+        List<Rectangle> queries = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            double x = random.nextDouble() * 950;
+            double y = random.nextDouble() * 950;
+            queries.add(new Rectangle(new Point(x, y), new Point(x + 50, y + 50)));
+        }
+
+        int fanOut = 32;
+        HilbertRTree hilbert = new HilbertRTree(new Rectangle(new Point(0, 0), new Point(1000, 1000)), fanOut);
+        RTree[] trees = {
+                new RTreeImpl(false, fanOut),
+                new RTreeImpl(false, fanOut, fanOut / 2, InsertionPolicy.RSTAR),
+                hilbert
+        };
+        String[] names = {"RTreeImpl", "RTreeImpl(R*)", "HilbertRTree"};
+
+        long[] insertTimes = new long[trees.length];
+        for (int t = 0; t < trees.length; t++) {
+            long startTime = System.nanoTime();
+            for (Point p : points) {
+                trees[t].add(p);
+            }
+            insertTimes[t] = System.nanoTime() - startTime;
+        }
+
+        // JIT 영향을 줄이려고 세 트리를 번갈아 몇 번 돌린 뒤 마지막 회차를 쓴다
+        long[] searchTimes = new long[trees.length];
+        for (int round = 0; round < 3; round++) {
+            for (int t = 0; t < trees.length; t++) {
+                long startTime = System.nanoTime();
+                for (Rectangle q : queries) {
+                    Iterator<Point> it = trees[t].search(q);
+                    while (it.hasNext()) it.next();
+                }
+                searchTimes[t] = System.nanoTime() - startTime;
+            }
+        }
+
+        System.out.println("Hilbert R-tree Results:\n" +
+                "\tpoints: " + pointCnt + " (random insert order)\n" +
+                "\tfan-out: " + fanOut + "\n" +
+                "\tqueries: " + queries.size());
+        System.out.println();
+        for (int t = 0; t < trees.length; t++) {
+            System.out.println("insert time - " + names[t] + ":\t" + insertTimes[t] + "ns");
+        }
+        for (int t = 0; t < trees.length; t++) {
+            System.out.println("search time - " + names[t] + ":\t" + searchTimes[t] + "ns");
+        }
+        System.out.println("node utilization - HilbertRTree:\t" + hilbert.utilization());
+        System.out.println("\n--------------------------------------------------------------------------------------------------------------\n");
+    }
+
+    // 건물 footprint 같은 작은 사각형들: 겹침 / 포함 / 내부 질의와 KNN
+    static void printRectangleCompare(int rectCnt) {
+        Random random = new Random();
+        List<RectangleEntry> entries = new ArrayList<>(rectCnt);
+        for (int i = 0; i < rectCnt; i++) {
+            double x = random.nextDouble() * 1000;
+            double y = random.nextDouble() * 1000;
+            Rectangle r = new Rectangle(new Point(x, y), new Point(x + random.nextDouble() * 5, y + random.nextDouble() * 5));
+            entries.add(new RectangleEntry(r, i));
+        }
+        List<Rectangle> queries = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            double x = random.nextDouble() * 980;
+            double y = random.nextDouble() * 980;
+            double size = i % 2 == 0 ? 0.5 : 20;   // 작은 질의는 CONTAINS(이 영역을 덮는 객체)용
+            queries.add(new Rectangle(new Point(x, y), new Point(x + size, y + size)));
+        }
+
+        long startTime = System.nanoTime();
+        RectangleRTree tree = new RectangleRTree(16);
+        for (RectangleEntry e : entries) {
+            tree.add(e);
+        }
+        long insertTime = System.nanoTime() - startTime;
+
+        System.out.println("Rectangle Index Results:\n" +
+                "\trectangles: " + rectCnt + "\n" +
+                "\tqueries: " + queries.size() + "\n" +
+                "\tinsert time - RectangleRTree: " + insertTime + "ns");
+        System.out.println();
+        for (SpatialRelation relation : SpatialRelation.values()) {
+            startTime = System.nanoTime();
+            long listHits = 0;
+            for (Rectangle q : queries) {
+                for (RectangleEntry e : entries) {
+                    Rectangle r = e.getRectangle();
+                    boolean hit = relation == SpatialRelation.INTERSECTS ? r.intersects(q)
+                            : relation == SpatialRelation.CONTAINS ? r.contains(q) : q.contains(r);
+                    if (hit) listHits++;
+                }
+            }
+            long listTime = System.nanoTime() - startTime;
+
+            startTime = System.nanoTime();
+            long treeHits = 0;
+            for (Rectangle q : queries) {
+                Iterator<RectangleEntry> it = tree.search(q, relation);
+                while (it.hasNext()) {
+                    it.next();
+                    treeHits++;
+                }
+            }
+            long treeTime = System.nanoTime() - startTime;
+
+            System.out.println(relation + " (hits " + treeHits + " / " + listHits + ")");
+            System.out.println("search time - ArrayList:\t" + listTime + "ns");
+            System.out.println("search time - RectangleRTree:\t" + treeTime + "ns");
+        }
+
+        startTime = System.nanoTime();
+        for (Rectangle q : queries) {
+            Iterator<RectangleEntry> it = tree.nearest(q.getLeftTop(), 10);
+            while (it.hasNext()) it.next();
+        }
+        System.out.println("knn time - RectangleRTree (k=10):\t" + (System.nanoTime() - startTime) + "ns");
+        System.out.println("\n--------------------------------------------------------------------------------------------------------------\n");
+    }
+
+    static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // RTree 분할 전략별 삽입 시간 / 범위 검색 시간 / KNN 시간 / 전체 노드 overlap 비교
+    static void printSplitPolicyCompare(List<Point> testInput) {
+        String[] names = {"Linear", "Quadratic", "Hilbert", "R* split", "R* (insert+split)"};
+        RTreeImpl[] trees = {
+                new RTreeImpl(false, RTreeNode.MAX, RTreeImpl.MIN, InsertionPolicy.LINEAR, new LinearSplitPolicy()),
+                new RTreeImpl(false, RTreeNode.MAX, RTreeImpl.MIN, InsertionPolicy.LINEAR, new QuadraticSplitPolicy()),
+                new RTreeImpl(false, RTreeNode.MAX, RTreeImpl.MIN, InsertionPolicy.LINEAR, new HilbertSplitPolicy()),
+                new RTreeImpl(false, RTreeNode.MAX, RTreeImpl.MIN, InsertionPolicy.LINEAR, new RStarSplitPolicy()),
+                new RTreeImpl(false, RTreeNode.MAX, RTreeImpl.MIN, InsertionPolicy.RSTAR, new RStarSplitPolicy())
+        };
+
+        System.out.println("Split Policy Results:\n" +
+                "\ttestInput: " + testInput.size() + "\n" +
+                "\trange search range: \t" + searchTestRect.toString() + "\n" +
+                "\tnearest search source: \t" + searchTestPoint.toString() + "\n" +
+                "\tnearest search count: " + kTest);
+        System.out.println();
+        System.out.println("policy\t\t\t\tinsert(ns)\tsearch(ns)\tnearest(ns)\toverlap");
+
+        for (int i = 0; i < trees.length; i++) {
+            RTreeImpl rTree = trees[i];
+            long startTime, endTime;
+
+            startTime = System.nanoTime();
+            for (Point point : testInput) {
+                rTree.add(point);
+            }
+            endTime = System.nanoTime();
+            long insertTime = endTime - startTime;
+
+            // 범위 검색은 결과를 끝까지 꺼내는 것까지 측정
+            startTime = System.nanoTime();
+            Iterator<Point> iterator = rTree.search(searchTestRect);
+            while (iterator.hasNext()) iterator.next();
+            endTime = System.nanoTime();
+            long searchTime = endTime - startTime;
+
+            startTime = System.nanoTime();
+            iterator = rTree.nearest(searchTestPoint, kTest);
+            while (iterator.hasNext()) iterator.next();
+            endTime = System.nanoTime();
+            long nearestTime = endTime - startTime;
+
+            System.out.printf("%-20s\t%d\t\t%d\t\t%d\t\t%.1f%n",
+                    names[i], insertTime, searchTime, nearestTime, rTree.totalOverlap());
+        }
+        System.out.println("\n--------------------------------------------------------------------------------------------------------------\n");
+    }
+
     // 각 기능들을 테스트하는 코드들.
     // 이거 상속 이용해서 한번에 묶어서 할 수도 있을 것 같은데... RTree코드가 어떻게 만들어질지 모르겠고, 이미 주어져있는 RTree interface를 건드려야 할 수도 있는 게 부담스러워서 그냥 각각 따로 구현함
     static TimeStamp TestRTree(List<Point> inputList, List<Point> deleteList) {
-        long startTime, endTime;
-        TimeStamp ts = new TimeStamp();
         //Main Case: RTree
         // 시각화/딜레이 없는 RTreeImpl 사용 (성능 측정용)
-        RTree rTree = new RTreeImpl(false);
+        return TestRTree(new RTreeImpl(false), inputList, deleteList);
+    }
+
+    static TimeStamp TestRTree(RTree rTree, List<Point> inputList, List<Point> deleteList) {
+        long startTime, endTime;
+        TimeStamp ts = new TimeStamp();
 
         // Test For Insert Nodes
         startTime = System.nanoTime();
@@ -163,28 +866,28 @@ public class ComparingTest {
         System.out.println("RTree: Time taken For Insert Nodes: " + ts.insertTime + "ns");
 
         // Test For Range Search
+        // search는 결과를 순회하면서 만들어내는 lazy iterator이므로 결과를 모두 꺼내는 것까지 측정
         startTime = System.nanoTime();
         Iterator<Point> iterator = rTree.search(searchTestRect);
-        endTime = System.nanoTime();
-        ts.searchTime = (endTime - startTime);
-        System.out.println("RTree: Time taken For Range Search: " + ts.searchTime + "ns");
-
         while (iterator != null && iterator.hasNext()) {
             Point next = iterator.next();
             if (inputList.size() < 40) System.out.println("Rtree Search " + next);
         }
+        endTime = System.nanoTime();
+        ts.searchTime = (endTime - startTime);
+        System.out.println("RTree: Time taken For Range Search: " + ts.searchTime + "ns");
 
         // Test For KNN Search
+        // nearest도 가까운 순서대로 하나씩 만들어내므로 결과를 모두 꺼내는 것까지 측정
         startTime = System.nanoTime();
         iterator = rTree.nearest(searchTestPoint, kTest);
-        endTime = System.nanoTime();
-        ts.nearestTime = (endTime - startTime);
-        System.out.println("RTree: Time taken For KNN Search: " + ts.nearestTime + "ns");
-
         while (iterator.hasNext()) {
             Point next = iterator.next();
             if (inputList.size() < 40) System.out.println("Rtree KNN " + next + ":" + searchTestPoint.distance(next));
         }
+        endTime = System.nanoTime();
+        ts.nearestTime = (endTime - startTime);
+        System.out.println("RTree: Time taken For KNN Search: " + ts.nearestTime + "ns");
 
         // Test For Delete Nodes
         startTime = System.nanoTime();
@@ -204,6 +907,45 @@ public class ComparingTest {
         return ts;
     }
 
+    // STR bulk loading으로 같은 포인트들을 한 번에 적재하는 시간 (add 반복과 비교용)
+    static long TestRTreeBulkLoad(List<Point> inputList) {
+        RTreeImpl rTree = new RTreeImpl(false);
+
+        long startTime = System.nanoTime();
+        rTree.bulkLoad(inputList);
+        long endTime = System.nanoTime();
+        System.out.println("RTree: Time taken For STR Bulk Load: " + (endTime - startTime) + "ns");
+        System.out.println("\n--------------------------------------------------------------------------------------------------------------\n");
+
+        return endTime - startTime;
+    }
+
+    // addAll / deleteAll로 한 번에 넣고 지우는 시간 + 같은 트리의 병렬 범위 검색 시간
+    static TimeStamp TestRTreeBatch(List<Point> inputList, List<Point> deleteList) {
+        RTreeImpl rTree = new RTreeImpl(false);
+        TimeStamp ts = new TimeStamp();
+
+        long startTime = System.nanoTime();
+        rTree.addAll(inputList);
+        ts.insertTime = System.nanoTime() - startTime;
+        System.out.println("RTree: Time taken For Batch Insert: " + ts.insertTime + "ns");
+
+        // 같은 트리로 병렬 범위 검색 (ForkJoin)
+        startTime = System.nanoTime();
+        Iterator<Point> iterator = rTree.searchParallel(searchTestRect);
+        while (iterator.hasNext()) iterator.next();
+        ts.searchTime = System.nanoTime() - startTime;
+        System.out.println("RTree: Time taken For Parallel Range Search: " + ts.searchTime + "ns");
+
+        startTime = System.nanoTime();
+        rTree.deleteAll(inputList);   // TestRTree와 같이 전체 삭제
+        ts.deleteTime = System.nanoTime() - startTime;
+        System.out.println("RTree: Time taken For Batch Delete: " + ts.deleteTime + "ns");
+        System.out.println("\n--------------------------------------------------------------------------------------------------------------\n");
+
+        return ts;
+    }
+
     static TimeStamp TestList(List<Point> list, List<Point> inputList, List<Point> deleteList) {
         long startTime, endTime;
         TimeStamp ts = new TimeStamp();
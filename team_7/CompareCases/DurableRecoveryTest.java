@@ -0,0 +1,86 @@
+package org.dfpl.dbp.rtree.team_7.CompareCases;
+
+import org.dfpl.dbp.rtree.team_7.DurableRTree;
+import org.dfpl.dbp.rtree.team_7.Point;
+import org.dfpl.dbp.rtree.team_7.RTreeImpl;
+import org.dfpl.dbp.rtree.team_7.Rectangle;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/*
+    DurableRTree 복구 확인.
+    checkpoint()가 새 체크포인트의 이름 바꾸기까지 끝내고 로그를 비우기 전에 죽은 상황을 만든 뒤 다시 연다.
+    다시 열면 체크포인트를 bulk load 하고 로그 전체를 재생하므로, 체크포인트에 이미 있는 점의 insert가 다시 들어온다.
+    이때 점이 두 번 들어가면 안 되고, 재생을 한 번 더 해도 결과가 같아야 한다.
+*/
+public class DurableRecoveryTest {
+
+    static final int maxEntries = 4;
+    static final int groupCommitSize = 64;
+    static final Rectangle everything = new Rectangle(
+            new Point(Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY),
+            new Point(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY));
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("durable");
+        Random random = new Random(7);
+
+        // 자동 체크포인트는 끄고 로그에만 쌓는다
+        DurableRTree tree = new DurableRTree(dir, maxEntries, groupCommitSize, Integer.MAX_VALUE);
+        Set<Point> expected = new HashSet<>();
+        // 좌표 범위가 좁아서 같은 점이 여러 번 들어온다
+        for (int i = 0; i < 5000; i++) {
+            Point p = new Point(random.nextInt(300), random.nextInt(300));
+            tree.add(p);
+            expected.add(p);
+        }
+        tree.commit();
+
+        // 이름 바꾸기까지 끝난 체크포인트: 지금 상태 그대로의 트리 파일. 로그는 비우지 않은 채로 닫는다.
+        RTreeImpl snapshot = new RTreeImpl(false, maxEntries);
+        for (Point p : expected) snapshot.add(p);
+        snapshot.save(dir.resolve("checkpoint.rtree"));
+        tree.close();
+
+        DurableRTree recovered = new DurableRTree(dir, maxEntries, groupCommitSize, Integer.MAX_VALUE);
+        check(recovered, expected, "after crash between rename and log reset");
+
+        // 복구된 트리에 이미 있는 점을 다시 넣어도 한 번만 있어야 한다
+        for (Point p : expected) recovered.add(p);
+        recovered.commit();
+        check(recovered, expected, "re-adding existing points");
+        recovered.close();
+
+        // 같은 체크포인트와 (더 길어진) 로그를 한 번 더 재생
+        DurableRTree again = new DurableRTree(dir, maxEntries, groupCommitSize, Integer.MAX_VALUE);
+        check(again, expected, "second replay");
+        again.close();
+
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(f -> f.toFile().delete());
+        }
+        Files.delete(dir);
+        System.out.println("Durable recovery: OK (" + expected.size() + " points)");
+    }
+
+    // 크기와 점마다의 개수(모두 1개)를 확인
+    static void check(DurableRTree tree, Set<Point> expected, String when) {
+        Map<Point, Integer> multiplicity = new HashMap<>();
+        int total = 0;
+        for (Iterator<Point> it = tree.search(everything); it.hasNext(); total++) {
+            multiplicity.merge(it.next(), 1, Integer::sum);
+        }
+        for (Map.Entry<Point, Integer> e : multiplicity.entrySet()) {
+            if (e.getValue() != 1) {
+                throw new IllegalStateException(when + ": " + e.getKey() + " stored " + e.getValue() + " times");
+            }
+        }
+        if (total != expected.size() || !multiplicity.keySet().equals(expected)) {
+            throw new IllegalStateException(when + ": expected " + expected.size() + " points, found " + total);
+        }
+    }
+}
@@ -0,0 +1,525 @@
+package org.dfpl.dbp.rtree.team_7;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 여러 스레드에서 함께 쓸 수 있는 R-tree.
+ *
+ * 잠금 규칙
+ *   - 노드마다 readers-writer latch를 두고, 모든 스레드는 위에서 아래로만 latch를 잡는다 (deadlock 없음).
+ *   - root 포인터는 anchor latch로 보호한다. root가 바뀌는 건 root 분할뿐이다.
+ *   - 자식의 MBR과 부모의 children 목록은 부모 latch를 쥔 스레드만 바꾼다.
+ *
+ * search : 루트에서 현재 노드까지의 경로에 read latch를 쥔 채 내려간다.
+ *          경로 위 노드가 분할되려면 write latch가 필요하므로 방문 중인 서브트리의 엔트리가 옮겨지지 않는다.
+ * nearest: best-first라 경로를 쥘 수 없으므로 노드를 읽을 때만 read latch를 잡고,
+ *          끝난 뒤 그 사이에 분할이나 MBR 확장이 있었는지(changeEpoch) 확인해서 있었으면 다시 한다.
+ *          MBR이 커지면 이미 힙에 넣은 노드의 거리 키가 실제보다 커져서 결과 순서가 틀어질 수 있기 때문이다.
+ * add    : latch coupling. 자식이 "안전"하면(자리가 남고 MBR이 이미 점을 덮음) 조상 latch를 모두 놓는다.
+ *          안전한 노드 위로는 분할도 MBR 변경도 올라가지 않기 때문이다.
+ * delete : Condense Tree가 트리 여러 곳을 건드리므로 structureLock을 배타적으로 잡고 혼자 수행한다.
+ *
+ * 분할 방식은 SplitPolicy를 따르며, 엔트리를 트리 전체로 옮기는 R* 강제 재삽입은 쓰지 않는다.
+ */
+public class ConcurrentRTree implements RTree {
+
+    // nearest가 낙관적으로 재시도하는 횟수. 넘으면 structureLock을 배타적으로 잡고 수행
+    private static final int OPTIMISTIC_RETRIES = 3;
+
+    private final int maxEntries;
+    private final int minEntries;
+    private final SplitPolicy splitPolicy;
+
+    // add / search / nearest는 공유, delete는 배타
+    private final ReentrantReadWriteLock structureLock = new ReentrantReadWriteLock();
+    // root 포인터 보호
+    private final ReentrantReadWriteLock anchor = new ReentrantReadWriteLock();
+    private volatile Node root;
+
+    // 분할이나 MBR 확장이 일어날 때마다 증가 (nearest 검증용). 바꾼 노드의 latch를 쥔 채로 올린다.
+    private final AtomicLong changeEpoch = new AtomicLong();
+
+    // 트리에 들어있는 점 (중복 검사와 isEmpty를 잠금 없이 처리)
+    private final Set<Point> keys = ConcurrentHashMap.newKeySet();
+
+    public ConcurrentRTree() {
+        this(RTreeNode.MAX);
+    }
+
+    public ConcurrentRTree(int maxEntries) {
+        this(maxEntries, maxEntries / 2);
+    }
+
+    public ConcurrentRTree(int maxEntries, int minEntries) {
+        this(maxEntries, minEntries, new LinearSplitPolicy());
+    }
+
+    public ConcurrentRTree(int maxEntries, int minEntries, SplitPolicy splitPolicy) {
+        if (maxEntries < 2) {
+            throw new IllegalArgumentException("maxEntries must be at least 2: " + maxEntries);
+        }
+        if (minEntries < 1 || minEntries > maxEntries / 2) {
+            throw new IllegalArgumentException("minEntries must be in [1, maxEntries / 2]: " + minEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.minEntries = minEntries;
+        this.splitPolicy = splitPolicy;
+        this.root = new Node(0);
+    }
+
+    // ======================================================================
+    //  Node
+
+    static final class Node {
+
+        final int level;   // 리프 = 0
+        final ReentrantReadWriteLock latch = new ReentrantReadWriteLock();
+        final List<Point> points;
+        final List<Node> children;
+
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+
+        Node(int level) {
+            this.level = level;
+            this.points = level == 0 ? new ArrayList<>() : null;
+            this.children = level == 0 ? null : new ArrayList<>();
+        }
+
+        boolean isLeaf() {
+            return level == 0;
+        }
+
+        int count() {
+            return isLeaf() ? points.size() : children.size();
+        }
+
+        boolean contains(double x, double y) {
+            return x >= minX && x <= maxX && y >= minY && y <= maxY;
+        }
+
+        boolean intersects(double qMinX, double qMinY, double qMaxX, double qMaxY) {
+            return minX <= qMaxX && maxX >= qMinX && minY <= qMaxY && maxY >= qMinY;
+        }
+
+        void include(double x1, double y1, double x2, double y2) {
+            minX = Math.min(minX, x1);
+            minY = Math.min(minY, y1);
+            maxX = Math.max(maxX, x2);
+            maxY = Math.max(maxY, y2);
+        }
+
+        void recompute() {
+            minX = minY = Double.POSITIVE_INFINITY;
+            maxX = maxY = Double.NEGATIVE_INFINITY;
+            if (isLeaf()) {
+                for (Point p : points) include(p.getX(), p.getY(), p.getX(), p.getY());
+            } else {
+                for (Node c : children) include(c.minX, c.minY, c.maxX, c.maxY);
+            }
+        }
+
+        double minDistSq(double px, double py) {
+            double dx = px < minX ? minX - px : (px > maxX ? px - maxX : 0);
+            double dy = py < minY ? minY - py : (py > maxY ? py - maxY : 0);
+            return dx * dx + dy * dy;
+        }
+
+        Rectangle rect() {
+            return new Rectangle(new Point(minX, minY), new Point(maxX, maxY));
+        }
+    }
+
+    // ======================================================================
+    //  Insert (latch coupling)
+
+    @Override
+    public void add(Point point) {
+        if (point == null) return;
+
+        structureLock.readLock().lock();
+        try {
+            // 같은 x, y 값을 갖는 Point가 이미 있으면 무시
+            if (!keys.add(point)) return;
+
+            double x = point.getX();
+            double y = point.getY();
+
+            // root가 안전하지 않으면 root 분할 가능성이 있으므로 anchor를 쥔 채로 내려간다
+            anchor.writeLock().lock();
+            boolean anchorHeld = true;
+
+            List<Node> held = new ArrayList<>();
+            Node node = root;
+            node.latch.writeLock().lock();
+            held.add(node);
+            if (isSafe(node, x, y)) {
+                anchor.writeLock().unlock();
+                anchorHeld = false;
+            }
+
+            try {
+                while (!node.isLeaf()) {
+                    Node child = chooseChild(node, x, y, x, y);
+                    child.latch.writeLock().lock();
+                    if (isSafe(child, x, y)) {
+                        // child 위로는 아무것도 바뀌지 않는다
+                        releaseWrite(held);
+                        if (anchorHeld) {
+                            anchor.writeLock().unlock();
+                            anchorHeld = false;
+                        }
+                    }
+                    held.add(child);
+                    node = child;
+                }
+
+                node.points.add(point);
+                boolean grown = false;
+                for (Node n : held) {
+                    if (!n.contains(x, y)) {
+                        n.include(x, y, x, y);
+                        grown = true;
+                    }
+                }
+                if (grown) changeEpoch.incrementAndGet();
+                splitUpward(held);
+            } finally {
+                releaseWrite(held);
+                if (anchorHeld) anchor.writeLock().unlock();
+            }
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    // 점 하나를 넣어도 분할되지 않고 MBR도 변하지 않는 노드
+    private boolean isSafe(Node node, double x, double y) {
+        return node.count() < maxEntries && node.contains(x, y);
+    }
+
+    private static void releaseWrite(List<Node> held) {
+        for (Node n : held) {
+            n.latch.writeLock().unlock();
+        }
+        held.clear();
+    }
+
+    // 면적 확장량이 최소인 자식 (동률이면 면적이 작은 쪽)
+    private static Node chooseChild(Node node, double minX, double minY, double maxX, double maxY) {
+        Node best = null;
+        double bestExpand = Double.MAX_VALUE;
+        double bestArea = Double.MAX_VALUE;
+
+        for (Node c : node.children) {
+            double area = (c.maxX - c.minX) * (c.maxY - c.minY);
+            double expand = (Math.max(c.maxX, maxX) - Math.min(c.minX, minX))
+                    * (Math.max(c.maxY, maxY) - Math.min(c.minY, minY)) - area;
+            if (best == null || expand < bestExpand || (expand == bestExpand && area < bestArea)) {
+                best = c;
+                bestExpand = expand;
+                bestArea = area;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * path 마지막 노드에 엔트리를 넣은 뒤 호출. overflow면 분할해서 위로 올린다.
+     * path[0]은 안전한 노드이거나 root(이때는 anchor를 쥐고 있음)이므로 path 밖으로는 번지지 않는다.
+     */
+    private void splitUpward(List<Node> path) {
+        boolean split = false;
+        for (int i = path.size() - 1; i >= 0 && path.get(i).count() > maxEntries; i--) {
+            Node node = path.get(i);
+            Node sibling = split(node);
+            split = true;
+
+            if (i == 0) {
+                // root 분할 → 새 root
+                Node newRoot = new Node(node.level + 1);
+                newRoot.children.add(node);
+                newRoot.children.add(sibling);
+                newRoot.recompute();
+                root = newRoot;
+            } else {
+                path.get(i - 1).children.add(sibling);
+            }
+        }
+        if (split) changeEpoch.incrementAndGet();
+    }
+
+    private Node split(Node node) {
+        Node sibling = new Node(node.level);
+        if (node.isLeaf()) {
+            List<List<Point>> groups = splitPolicy.split(new ArrayList<>(node.points), p -> new Rectangle(p, p), minEntries);
+            node.points.clear();
+            node.points.addAll(groups.get(0));
+            sibling.points.addAll(groups.get(1));
+        } else {
+            List<List<Node>> groups = splitPolicy.split(new ArrayList<>(node.children), Node::rect, minEntries);
+            node.children.clear();
+            node.children.addAll(groups.get(0));
+            sibling.children.addAll(groups.get(1));
+        }
+        node.recompute();
+        sibling.recompute();
+        return sibling;
+    }
+
+    // ======================================================================
+    //  Search (경로 read latch 유지)
+
+    @Override
+    public Iterator<Point> search(Rectangle rectangle) {
+        double qMinX = rectangle.getLeftTop().getX();
+        double qMinY = rectangle.getLeftTop().getY();
+        double qMaxX = rectangle.getRightBottom().getX();
+        double qMaxY = rectangle.getRightBottom().getY();
+
+        List<Point> result = new ArrayList<>();
+        structureLock.readLock().lock();
+        try {
+            Node r = lockRootForRead();
+            try {
+                if (r.intersects(qMinX, qMinY, qMaxX, qMaxY)) {
+                    search(r, qMinX, qMinY, qMaxX, qMaxY, result);
+                }
+            } finally {
+                r.latch.readLock().unlock();
+            }
+        } finally {
+            structureLock.readLock().unlock();
+        }
+        return result.iterator();
+    }
+
+    // node의 read latch는 호출한 쪽이 쥐고 있다
+    private void search(Node node, double qMinX, double qMinY, double qMaxX, double qMaxY, List<Point> out) {
+        if (node.isLeaf()) {
+            for (Point p : node.points) {
+                double x = p.getX();
+                double y = p.getY();
+                if (x >= qMinX && x <= qMaxX && y >= qMinY && y <= qMaxY) out.add(p);
+            }
+            return;
+        }
+
+        for (Node child : node.children) {
+            if (!child.intersects(qMinX, qMinY, qMaxX, qMaxY)) continue;
+            child.latch.readLock().lock();
+            try {
+                search(child, qMinX, qMinY, qMaxX, qMaxY, out);
+            } finally {
+                child.latch.readLock().unlock();
+            }
+        }
+    }
+
+    private Node lockRootForRead() {
+        anchor.readLock().lock();
+        try {
+            Node r = root;
+            r.latch.readLock().lock();
+            return r;
+        } finally {
+            anchor.readLock().unlock();
+        }
+    }
+
+    // ======================================================================
+    //  KNN (노드 단위 read latch + changeEpoch 검증)
+
+    @Override
+    public Iterator<Point> nearest(Point source, int maxCount) {
+        if (source == null || maxCount <= 0) return Collections.emptyIterator();
+
+        structureLock.readLock().lock();
+        try {
+            for (int attempt = 0; attempt < OPTIMISTIC_RETRIES; attempt++) {
+                long epoch = changeEpoch.get();
+                List<Point> result = nearestBestFirst(source, maxCount);
+                if (changeEpoch.get() == epoch) {
+                    return result.iterator();
+                }
+            }
+        } finally {
+            structureLock.readLock().unlock();
+        }
+
+        // 분할이나 MBR 확장이 계속 겹치면 쓰기를 막고 한 번 더
+        structureLock.writeLock().lock();
+        try {
+            return nearestBestFirst(source, maxCount).iterator();
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    private List<Point> nearestBestFirst(Point source, int maxCount) {
+        double sx = source.getX();
+        double sy = source.getY();
+
+        DistanceHeap heap = new DistanceHeap();
+        Node r = lockRootForRead();
+        try {
+            heap.push(r.minDistSq(sx, sy), r);
+        } finally {
+            r.latch.readLock().unlock();
+        }
+
+        List<Point> result = new ArrayList<>();
+        while (!heap.isEmpty() && result.size() < maxCount) {
+            Object top = heap.pop();
+
+            if (top instanceof Point) {
+                result.add((Point) top);
+                continue;
+            }
+
+            Node node = (Node) top;
+            node.latch.readLock().lock();
+            try {
+                if (node.isLeaf()) {
+                    for (Point p : node.points) {
+                        double dx = p.getX() - sx;
+                        double dy = p.getY() - sy;
+                        heap.push(dx * dx + dy * dy, p);
+                    }
+                } else {
+                    for (Node c : node.children) {
+                        heap.push(c.minDistSq(sx, sy), c);
+                    }
+                }
+            } finally {
+                node.latch.readLock().unlock();
+            }
+        }
+        return result;
+    }
+
+    // ======================================================================
+    //  Delete (배타적으로 수행)
+
+    @Override
+    public void delete(Point point) {
+        if (point == null) return;
+
+        structureLock.writeLock().lock();
+        try {
+            if (!keys.remove(point)) return;
+
+            // root에서 리프까지의 경로
+            List<Node> path = new ArrayList<>();
+            if (!findLeaf(root, point.getX(), point.getY(), path)) return;
+
+            Node leaf = path.get(path.size() - 1);
+            leaf.points.removeIf(p -> p.getX() == point.getX() && p.getY() == point.getY());
+            condenseTree(path);
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    private boolean findLeaf(Node node, double x, double y, List<Node> path) {
+        if (!node.contains(x, y)) return false;
+        path.add(node);
+
+        if (node.isLeaf()) {
+            for (Point p : node.points) {
+                if (p.getX() == x && p.getY() == y) return true;
+            }
+        } else {
+            for (Node c : node.children) {
+                if (findLeaf(c, x, y, path)) return true;
+            }
+        }
+        path.remove(path.size() - 1);
+        return false;
+    }
+
+    private void condenseTree(List<Node> path) {
+        List<Node> orphans = new ArrayList<>();
+
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            if (node.count() < minEntries) {
+                path.get(i - 1).children.remove(node);
+                orphans.add(node);
+            } else {
+                node.recompute();
+            }
+        }
+        root.recompute();
+
+        if (!root.isLeaf() && root.children.isEmpty()) {
+            root = new Node(0);
+        }
+
+        // 떼어낸 노드의 엔트리를 원래 높이에 다시 넣는다
+        for (Node orphan : orphans) {
+            if (orphan.isLeaf()) {
+                for (Point p : orphan.points) insertEntry(p, null, 0);
+            } else {
+                for (Node c : orphan.children) insertSubtree(c);
+            }
+        }
+
+        while (!root.isLeaf() && root.children.size() == 1) {
+            root = root.children.get(0);
+        }
+    }
+
+    // 서브트리를 같은 높이로 다시 매단다. 트리가 그만큼 높지 않으면 점으로 풀어서 넣는다.
+    private void insertSubtree(Node subtree) {
+        if (subtree.level >= root.level) {
+            if (subtree.isLeaf()) {
+                for (Point p : subtree.points) insertEntry(p, null, 0);
+            } else {
+                for (Node c : subtree.children) insertSubtree(c);
+            }
+            return;
+        }
+        insertEntry(null, subtree, subtree.level + 1);
+    }
+
+    // 배타 잠금 안에서만 호출: 점(targetLevel 0) 또는 서브트리를 targetLevel 노드에 넣는다
+    private void insertEntry(Point point, Node subtree, int targetLevel) {
+        double minX, minY, maxX, maxY;
+        if (point != null) {
+            minX = maxX = point.getX();
+            minY = maxY = point.getY();
+        } else {
+            minX = subtree.minX;
+            minY = subtree.minY;
+            maxX = subtree.maxX;
+            maxY = subtree.maxY;
+        }
+
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        while (node.level > targetLevel) {
+            node = chooseChild(node, minX, minY, maxX, maxY);
+            path.add(node);
+        }
+
+        if (point != null) {
+            node.points.add(point);
+        } else {
+            node.children.add(subtree);
+        }
+        for (Node n : path) {
+            n.include(minX, minY, maxX, maxY);
+        }
+        splitUpward(path);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return keys.isEmpty();
+    }
+}
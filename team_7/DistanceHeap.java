@@ -0,0 +1,91 @@
+package org.dfpl.dbp.rtree.team_7;
+
+import java.util.Arrays;
+
+/**
+ * KNN 탐색용 최소 힙. 키(제곱 거리)는 double[]에, 값(RTreeNode 또는 Point)은 Object[]에 나란히 저장한다.
+ * 엔트리마다 객체를 만들지 않고, 비교할 때 거리를 다시 계산하지 않는다.
+ * clear() 후 같은 배열을 재사용할 수 있으므로 한 스레드에서 여러 질의에 돌려 쓰면 된다.
+ */
+class DistanceHeap {
+
+    private double[] keys;
+    private Object[] values;
+    private int size;
+
+    DistanceHeap() {
+        this(64);
+    }
+
+    DistanceHeap(int initialCapacity) {
+        keys = new double[Math.max(2, initialCapacity)];
+        values = new Object[keys.length];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void push(double key, Object value) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+
+        // sift up
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] <= key) break;
+            keys[i] = keys[parent];
+            values[i] = values[parent];
+            i = parent;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    double peekKey() {
+        return keys[0];
+    }
+
+    Object peekValue() {
+        return values[0];
+    }
+
+    Object pop() {
+        Object top = values[0];
+        size--;
+
+        double key = keys[size];
+        Object value = values[size];
+        values[size] = null;
+
+        // sift down
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && keys[child + 1] < keys[child]) child++;
+            if (key <= keys[child]) break;
+            keys[i] = keys[child];
+            values[i] = values[child];
+            i = child;
+        }
+        if (size > 0) {
+            keys[i] = key;
+            values[i] = value;
+        }
+        return top;
+    }
+
+    // 배열은 그대로 두고 비운다 (참조는 끊어서 GC가 회수할 수 있게)
+    void clear() {
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+    }
+}
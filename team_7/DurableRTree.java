@@ -0,0 +1,271 @@
+package org.dfpl.dbp.rtree.team_7;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 변경을 write-ahead log에 남기는 RTreeImpl 래퍼.
+ *
+ * 디렉터리 구성
+ *   checkpoint.rtree : 마지막 체크포인트 시점의 트리 (RTreeImpl.save 형식, MappedRTree로 읽는다)
+ *   wal.log          : 체크포인트 이후의 insert / delete 레코드
+ *
+ * add / delete는 로그 버퍼에 레코드를 쌓고 메모리 트리에 바로 반영한다.
+ * 버퍼는 groupCommitSize개가 찰 때마다, 또는 commit()을 부를 때 한 번의 fsync로 내려간다 (group commit).
+ * 따라서 durability는 점 단위가 아니라 commit 단위이고, commit 전에 죽으면 마지막 batch는 없어질 수 있다.
+ *
+ * 체크포인트는 checkpointInterval개 레코드마다 자동으로, 또는 checkpoint()로 직접 만든다.
+ * 다시 열 때는 체크포인트를 읽어 bulk load 한 뒤 로그 꼬리를 재생한다.
+ * insert는 트리 전체에서 같은 좌표를 찾아본 뒤에만 넣으므로(contains) 같은 순서로 다시 적용해도 결과가 같다.
+ * 그래서 체크포인트 교체 직후 로그를 비우기 전에 죽어도 로그를 처음부터 다시 재생하면 된다.
+ */
+public class DurableRTree implements RTree, AutoCloseable {
+
+    static final String CHECKPOINT_FILE = "checkpoint.rtree";
+    static final String LOG_FILE = "wal.log";
+
+    public static final int DEFAULT_GROUP_COMMIT_SIZE = 1024;
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 1 << 20;
+
+    private final Path directory;
+    private final int maxEntries;
+    private final int checkpointInterval;
+
+    private final RTreeImpl tree;
+    private final WriteAheadLog log;
+
+    // 마지막 체크포인트 이후 로그에 남긴 레코드 수
+    private long logRecords;
+
+    public DurableRTree(Path directory) throws IOException {
+        this(directory, RTreeNode.MAX, DEFAULT_GROUP_COMMIT_SIZE, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    public DurableRTree(Path directory, int maxEntries, int groupCommitSize, int checkpointInterval) throws IOException {
+        if (groupCommitSize < 1) {
+            throw new IllegalArgumentException("groupCommitSize must be at least 1: " + groupCommitSize);
+        }
+        if (checkpointInterval < 1) {
+            throw new IllegalArgumentException("checkpointInterval must be at least 1: " + checkpointInterval);
+        }
+        this.directory = directory;
+        this.maxEntries = maxEntries;
+        this.checkpointInterval = checkpointInterval;
+
+        Files.createDirectories(directory);
+        this.tree = loadCheckpoint();
+        this.log = new WriteAheadLog(directory.resolve(LOG_FILE), groupCommitSize);
+        recover();
+    }
+
+    // ======================================================================
+    //  Recovery
+
+    private RTreeImpl loadCheckpoint() throws IOException {
+        RTreeImpl loaded = new RTreeImpl(false, maxEntries);
+
+        // 점만 복사해 오면 되므로 매핑하지 않고 읽는다 (매핑은 트리가 살아 있는 동안 풀리지 않는다)
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        if (Files.exists(checkpoint)) {
+            loaded.bulkLoad(MappedRTree.readPoints(checkpoint));
+        }
+        return loaded;
+    }
+
+    private void recover() throws IOException {
+        logRecords = log.replay((type, point) -> {
+            if (type == WriteAheadLog.INSERT) {
+                if (!contains(point)) tree.add(point);
+            } else {
+                tree.delete(point);
+            }
+        });
+    }
+
+    // 트리 전체에서 같은 좌표를 찾는다.
+    // RTreeImpl.add는 고른 리프 안에서만 중복을 보므로, bulk load 한 트리에 체크포인트에 있던 점을 다시 넣으면
+    // 다른 리프에 한 번 더 들어갈 수 있다.
+    private boolean contains(Point point) {
+        return tree.search(new Rectangle(point, point)).hasNext();
+    }
+
+    // ======================================================================
+    //  Mutations
+
+    @Override
+    public void add(Point point) {
+        if (point == null || contains(point)) return;
+        append(WriteAheadLog.INSERT, point);
+        tree.add(point);
+        maybeCheckpoint();
+    }
+
+    @Override
+    public void delete(Point point) {
+        if (point == null) return;
+        append(WriteAheadLog.DELETE, point);
+        tree.delete(point);
+        maybeCheckpoint();
+    }
+
+    /**
+     * batch 전체를 로그에 남기고 트리에 한 번에 반영한 뒤 commit 한다 (batch 단위 durability).
+     *
+     * @param points
+     */
+    @Override
+    public void addAll(Collection<Point> points) {
+        // 이미 있는 점과 batch 안에서 겹치는 점은 로그에도 트리에도 넣지 않는다
+        List<Point> fresh = new ArrayList<>();
+        Set<Point> seen = new HashSet<>();
+        for (Point point : points) {
+            if (point == null || !seen.add(point) || contains(point)) continue;
+            append(WriteAheadLog.INSERT, point);
+            fresh.add(point);
+        }
+        tree.addAll(fresh);
+        commitBatch();
+    }
+
+    @Override
+    public void deleteAll(Collection<Point> points) {
+        for (Point point : points) {
+            if (point != null) append(WriteAheadLog.DELETE, point);
+        }
+        tree.deleteAll(points);
+        commitBatch();
+    }
+
+    /**
+     * 옮기기는 로그에 delete + insert 두 레코드로 남기고, 메모리 트리에서는 RTreeImpl.update로 제자리에서 옮긴다.
+     *
+     * @param from
+     * @param to
+     */
+    @Override
+    public void update(Point from, Point to) {
+        if (from == null || to == null) return;
+        if (!tree.search(new Rectangle(from, from)).hasNext()) return;
+        append(WriteAheadLog.DELETE, from);
+        append(WriteAheadLog.INSERT, to);
+        if (contains(to)) {
+            // to가 이미 있으면 옮길 자리가 없다 (delete 후 add와 같다)
+            tree.delete(from);
+        } else {
+            tree.update(from, to);
+        }
+        maybeCheckpoint();
+    }
+
+    private void commitBatch() {
+        try {
+            log.commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        maybeCheckpoint();
+    }
+
+    private void append(byte type, Point point) {
+        try {
+            log.append(type, point.getX(), point.getY());
+            logRecords++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void maybeCheckpoint() {
+        if (logRecords < checkpointInterval) return;
+        try {
+            checkpoint();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 버퍼에 쌓인 변경을 fsync 합니다. 반환 후에는 지금까지의 add / delete가 모두 복구 가능하다.
+     *
+     * @throws IOException
+     */
+    public void commit() throws IOException {
+        log.commit();
+    }
+
+    /**
+     * 현재 트리를 체크포인트 파일로 저장하고 로그를 비웁니다.
+     * 새 파일을 다 쓴 뒤 이름을 바꿔 교체하므로, 도중에 죽어도 이전 체크포인트 + 로그로 복구된다.
+     *
+     * @throws IOException
+     */
+    public void checkpoint() throws IOException {
+        log.commit();
+
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        tree.save(temp);
+        Files.move(temp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // 이름 바꾸기가 디스크에 내려간 뒤에만 로그를 비운다.
+        // 순서가 뒤바뀐 채로 죽으면 이전 체크포인트 + 빈 로그가 남아 체크포인트 이후의 변경이 모두 사라진다.
+        syncDirectory();
+
+        log.reset();
+        logRecords = 0;
+    }
+
+    // 디렉터리 엔트리 변경(rename)을 fsync 한다.
+    // Windows는 디렉터리를 채널로 열 수 없으므로 건너뛴다 (NTFS는 rename을 메타데이터 저널에 남긴다).
+    private void syncDirectory() throws IOException {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            if (!System.getProperty("os.name").startsWith("Windows")) throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        log.close();
+    }
+
+    // ======================================================================
+    //  Query
+
+    @Override
+    public Iterator<Point> search(Rectangle rectangle) {
+        return tree.search(rectangle);
+    }
+
+    @Override
+    public Iterator<Point> nearest(Point source, int maxCount) {
+        return tree.nearest(source, maxCount);
+    }
+
+    @Override
+    public long count(Rectangle rectangle) {
+        return tree.count(rectangle);
+    }
+
+    @Override
+    public Iterator<Point> withinDistance(Point center, double radius) {
+        return tree.withinDistance(center, radius);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return tree.isEmpty();
+    }
+}
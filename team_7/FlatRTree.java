@@ -0,0 +1,755 @@
+package org.dfpl.dbp.rtree.team_7;
+
+import java.util.*;
+
+/**
+ * RTreeImpl과 같은 R-tree를 객체 그래프 대신 평평한 primitive 배열로 저장하는 구현.
+ *
+ * 노드는 리프 풀 / 내부 노드 풀 두 곳에 int id로 저장된다.
+ * - 리프: 점 좌표를 공용 double[] 풀 안의 연속 구간에 (x, y) 쌍으로 저장 → Point 객체도, List도 없다.
+ *   구간 길이는 실제 점 수에 약간의 여유만 더한 크기라서, 노드마다 maxEntries + 1칸을 잡아 두는 것보다 훨씬 작다.
+ * - 내부 노드: 자식 id를 int[]에 저장하고, 자식 MBR은 자식 풀의 box 배열에서 읽는다.
+ * - MBR: 노드마다 double 4개 (minX, minY, maxX, maxY).
+ * 범위 검색 / KNN은 이 배열들만 훑으므로 캐시 지역성이 좋고, Point는 결과로 내보낼 때만 만든다.
+ */
+public class FlatRTree implements RTree {
+
+    private static final int NONE = -1;
+
+    // KNN 힙 값 인코딩 (상위 2bit: 종류, 나머지: id)
+    private static final long TAG_INNER = 0L;
+    private static final long TAG_LEAF = 1L << 62;
+    private static final long TAG_POINT = 2L << 62;
+    private static final long TAG_MASK = 3L << 62;
+
+    private final int maxEntries;
+    private final int minEntries;
+    private final int slots;          // 노드당 엔트리 칸 수 (분할 직전 overflow 1칸 포함)
+    private final SplitPolicy splitPolicy;
+
+    // ---- 리프 노드 풀 ----
+    // 리프의 점은 leafXY 안의 자기 구간에 모여 있다. 구간이 차면 풀 끝에 더 긴 구간을 잡아 옮기고,
+    // 옮기고 남은 자리(garbage)는 풀이 가득 찼을 때 살아 있는 구간만 앞으로 당겨 채우며 회수한다.
+    private double[] leafXY;          // 리프 i의 k번째 점: leafXY[(leafOff[i] + k) * 2], leafXY[... + 1]
+    private int pointTop;             // leafXY에서 지금까지 쓴 점 칸 수 (garbage 포함)
+    private int garbage;              // 어느 리프도 쓰지 않는 점 칸 수
+    private int[] leafOff;            // 리프 i의 구간 시작 (점 단위)
+    private int[] leafCap;            // 리프 i의 구간 길이 (점 단위, 해제된 리프는 0)
+    private int[] leafCount;
+    private int[] leafParent;
+    private double[] leafBox;         // 리프 i의 MBR: leafBox[i * 4 .. i * 4 + 3]
+    private int leafTop;              // 지금까지 할당된 리프 id 개수
+    private int[] leafFree = new int[16];
+    private int leafFreeSize;
+
+    // ---- 내부 노드 풀 ----
+    private int[] childIds;           // 내부 노드 i의 k번째 자식 id: childIds[i * slots + k]
+    private int[] innerCount;
+    private int[] innerParent;
+    private int[] innerLevel;         // 리프 = 0 기준 높이 (1이면 자식이 리프)
+    private double[] innerBox;
+    private int innerTop;
+    private int[] innerFree = new int[16];
+    private int innerFreeSize;
+
+    // 루트 (rootLevel == 0이면 root는 리프 id)
+    private int root;
+    private int rootLevel;
+
+    private int size;
+    private int modCount;
+
+    // KNN 탐색 힙. 읽기만 하는 스레드들이 동시에 nearest를 불러도 되도록 스레드마다 하나씩 둔다.
+    private static final ThreadLocal<LongDistanceHeap> SCRATCH_HEAP = ThreadLocal.withInitial(LongDistanceHeap::new);
+
+    public FlatRTree() {
+        this(RTreeNode.MAX);
+    }
+
+    public FlatRTree(int maxEntries) {
+        this(maxEntries, maxEntries / 2);
+    }
+
+    public FlatRTree(int maxEntries, int minEntries) {
+        this(maxEntries, minEntries, new LinearSplitPolicy());
+    }
+
+    public FlatRTree(int maxEntries, int minEntries, SplitPolicy splitPolicy) {
+        if (maxEntries < 2) {
+            throw new IllegalArgumentException("maxEntries must be at least 2: " + maxEntries);
+        }
+        if (minEntries < 1 || minEntries > maxEntries / 2) {
+            throw new IllegalArgumentException("minEntries must be in [1, maxEntries / 2]: " + minEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.minEntries = minEntries;
+        this.slots = maxEntries + 1;
+        this.splitPolicy = splitPolicy;
+
+        int leafCapacity = 16;
+        leafXY = new double[leafCapacity * 2 * 2];
+        leafOff = new int[leafCapacity];
+        leafCap = new int[leafCapacity];
+        leafCount = new int[leafCapacity];
+        leafParent = new int[leafCapacity];
+        leafBox = new double[leafCapacity * 4];
+
+        int innerCap = 4;
+        childIds = new int[innerCap * slots];
+        innerCount = new int[innerCap];
+        innerParent = new int[innerCap];
+        innerLevel = new int[innerCap];
+        innerBox = new double[innerCap * 4];
+
+        root = allocLeaf();
+        rootLevel = 0;
+    }
+
+    // ======================================================================
+    //  노드 풀 관리
+
+    private int allocLeaf() {
+        int id;
+        if (leafFreeSize > 0) {
+            id = leafFree[--leafFreeSize];
+        } else {
+            id = leafTop++;
+            if (id == leafCount.length) {
+                int cap = leafCount.length + (leafCount.length >> 1);   // ArrayList처럼 1.5배씩
+                leafOff = Arrays.copyOf(leafOff, cap);
+                leafCap = Arrays.copyOf(leafCap, cap);
+                leafCount = Arrays.copyOf(leafCount, cap);
+                leafParent = Arrays.copyOf(leafParent, cap);
+                leafBox = Arrays.copyOf(leafBox, cap * 4);
+            }
+        }
+        leafOff[id] = 0;
+        leafCap[id] = 0;
+        leafCount[id] = 0;
+        leafParent[id] = NONE;
+        resetBox(leafBox, id);
+        return id;
+    }
+
+    private int allocInner(int level) {
+        int id;
+        if (innerFreeSize > 0) {
+            id = innerFree[--innerFreeSize];
+        } else {
+            id = innerTop++;
+            if (id == innerCount.length) {
+                int cap = innerCount.length + (innerCount.length >> 1);
+                childIds = Arrays.copyOf(childIds, cap * slots);
+                innerCount = Arrays.copyOf(innerCount, cap);
+                innerParent = Arrays.copyOf(innerParent, cap);
+                innerLevel = Arrays.copyOf(innerLevel, cap);
+                innerBox = Arrays.copyOf(innerBox, cap * 4);
+            }
+        }
+        innerCount[id] = 0;
+        innerParent[id] = NONE;
+        innerLevel[id] = level;
+        resetBox(innerBox, id);
+        return id;
+    }
+
+    private void freeNode(int level, int id) {
+        if (level == 0) {
+            garbage += leafCap[id];
+            leafCap[id] = 0;
+            if (leafFreeSize == leafFree.length) leafFree = Arrays.copyOf(leafFree, leafFreeSize * 2);
+            leafFree[leafFreeSize++] = id;
+        } else {
+            if (innerFreeSize == innerFree.length) innerFree = Arrays.copyOf(innerFree, innerFreeSize * 2);
+            innerFree[innerFreeSize++] = id;
+        }
+    }
+
+    // ======================================================================
+    //  리프 좌표 구간 관리
+
+    // 점 count개를 담을 리프 구간의 길이 (여유는 1/4, 최소 1칸, 최대 slots)
+    private int runCapacity(int count) {
+        return Math.min(slots, count + Math.max(1, count >> 2));
+    }
+
+    // 리프의 점들을 풀 끝에 새로 잡은 cap칸짜리 구간으로 옮긴다 (원래 구간은 garbage가 된다)
+    private void moveRun(int leaf, int cap) {
+        reservePoints(cap);
+        System.arraycopy(leafXY, leafOff[leaf] * 2, leafXY, pointTop * 2, leafCount[leaf] * 2);
+        garbage += leafCap[leaf];
+        leafOff[leaf] = pointTop;
+        leafCap[leaf] = cap;
+        pointTop += cap;
+    }
+
+    // 풀 끝에 n칸이 남도록 한다. 모자라면 살아 있는 구간만 새 배열에 차례로 옮겨 담는다 (garbage 회수).
+    // 모든 리프의 leafOff가 바뀔 수 있으므로 호출한 쪽은 구간 위치를 다시 읽어야 한다.
+    private void reservePoints(int n) {
+        if ((pointTop + n) * 2 <= leafXY.length) return;
+
+        int need = pointTop - garbage + n;
+        double[] packed = new double[(need + (need >> 2) + 16) * 2];
+        int top = 0;
+        for (int id = 0; id < leafTop; id++) {
+            if (leafCap[id] == 0) continue;
+            System.arraycopy(leafXY, leafOff[id] * 2, packed, top * 2, leafCount[id] * 2);
+            leafOff[id] = top;
+            top += leafCap[id];
+        }
+        leafXY = packed;
+        pointTop = top;
+        garbage = 0;
+    }
+
+    private double[] boxes(int level) {
+        return level == 0 ? leafBox : innerBox;
+    }
+
+    private int count(int level, int id) {
+        return level == 0 ? leafCount[id] : innerCount[id];
+    }
+
+    private int parentOf(int level, int id) {
+        return level == 0 ? leafParent[id] : innerParent[id];
+    }
+
+    private void setParent(int level, int id, int parent) {
+        if (level == 0) {
+            leafParent[id] = parent;
+        } else {
+            innerParent[id] = parent;
+        }
+    }
+
+    // ======================================================================
+    //  MBR(box) 계산
+
+    private static void resetBox(double[] box, int id) {
+        box[id * 4] = Double.POSITIVE_INFINITY;
+        box[id * 4 + 1] = Double.POSITIVE_INFINITY;
+        box[id * 4 + 2] = Double.NEGATIVE_INFINITY;
+        box[id * 4 + 3] = Double.NEGATIVE_INFINITY;
+    }
+
+    private static void includeBox(double[] box, int id,
+                                   double minX, double minY, double maxX, double maxY) {
+        int b = id * 4;
+        if (minX < box[b]) box[b] = minX;
+        if (minY < box[b + 1]) box[b + 1] = minY;
+        if (maxX > box[b + 2]) box[b + 2] = maxX;
+        if (maxY > box[b + 3]) box[b + 3] = maxY;
+    }
+
+    private void recomputeBox(int level, int id) {
+        if (level == 0) {
+            resetBox(leafBox, id);
+            int base = leafOff[id] * 2;
+            for (int k = 0; k < leafCount[id]; k++) {
+                double x = leafXY[base + k * 2];
+                double y = leafXY[base + k * 2 + 1];
+                includeBox(leafBox, id, x, y, x, y);
+            }
+        } else {
+            resetBox(innerBox, id);
+            double[] cb = boxes(level - 1);
+            for (int k = 0; k < innerCount[id]; k++) {
+                int c = childIds[id * slots + k] * 4;
+                includeBox(innerBox, id, cb[c], cb[c + 1], cb[c + 2], cb[c + 3]);
+            }
+        }
+    }
+
+    private static double area(double minX, double minY, double maxX, double maxY) {
+        return (maxX - minX) * (maxY - minY);
+    }
+
+    private static boolean intersects(double[] box, int id, Rectangle r) {
+        int b = id * 4;
+        return !(r.getRightBottom().getX() < box[b] || r.getLeftTop().getX() > box[b + 2] ||
+                r.getRightBottom().getY() < box[b + 1] || r.getLeftTop().getY() > box[b + 3]);
+    }
+
+    private static boolean containsPoint(double[] box, int id, double x, double y) {
+        int b = id * 4;
+        return x >= box[b] && x <= box[b + 2] && y >= box[b + 1] && y <= box[b + 3];
+    }
+
+    private static double minDistSq(double[] box, int id, double px, double py) {
+        int b = id * 4;
+        double dx = Math.max(0, Math.max(box[b] - px, px - box[b + 2]));
+        double dy = Math.max(0, Math.max(box[b + 1] - py, py - box[b + 3]));
+        return dx * dx + dy * dy;
+    }
+
+    // ======================================================================
+    //  Insert
+
+    @Override
+    public void add(Point point) {
+        if (point == null) return;
+
+        double x = point.getX();
+        double y = point.getY();
+
+        // 같은 x, y 값을 갖는 Point가 이미 있으면 무시 (트리 전체 기준)
+        if (findLeaf(x, y) != NONE) return;
+
+        insertPoint(x, y);
+        size++;
+        modCount++;
+    }
+
+    private void insertPoint(double x, double y) {
+        // 1. 삽입할 leaf 선택
+        int leaf = chooseNode(x, y, x, y, 0);
+
+        // 2. 좌표를 리프 구간 끝에 추가
+        appendPoint(leaf, x, y);
+
+        // 3. 루트까지 MBR 확장
+        int level = 0;
+        int id = leaf;
+        while (id != NONE) {
+            includeBox(boxes(level), id, x, y, x, y);
+            id = parentOf(level, id);
+            level++;
+        }
+
+        // 4. 용량 초과 시 분할
+        if (leafCount[leaf] > maxEntries) {
+            split(0, leaf);
+        }
+    }
+
+    // 루트에서부터 내려가며 주어진 box를 넣을 targetLevel 높이의 노드를 고른다 (면적 확장량 최소, 동률이면 면적 최소)
+    private int chooseNode(double minX, double minY, double maxX, double maxY, int targetLevel) {
+        int id = root;
+        int level = rootLevel;
+
+        while (level > targetLevel && innerCount[id] > 0) {
+            double[] cb = boxes(level - 1);
+            int best = NONE;
+            double bestExpand = Double.MAX_VALUE;
+            double bestArea = Double.MAX_VALUE;
+
+            for (int k = 0; k < innerCount[id]; k++) {
+                int c = childIds[id * slots + k];
+                int b = c * 4;
+                double a = area(cb[b], cb[b + 1], cb[b + 2], cb[b + 3]);
+                double expand = area(Math.min(cb[b], minX), Math.min(cb[b + 1], minY),
+                        Math.max(cb[b + 2], maxX), Math.max(cb[b + 3], maxY)) - a;
+                if (expand < bestExpand || (expand == bestExpand && a < bestArea)) {
+                    best = c;
+                    bestExpand = expand;
+                    bestArea = a;
+                }
+            }
+            id = best;
+            level--;
+        }
+        return id;
+    }
+
+    // ======================================================================
+    //  Split (분할 방식은 splitPolicy가 결정, 엔트리는 노드 안의 칸 번호로 넘긴다)
+
+    private void split(int level, int id) {
+        int n = count(level, id);
+        List<Integer> entries = new ArrayList<>(n);
+        for (int k = 0; k < n; k++) entries.add(k);
+
+        List<List<Integer>> groups = splitPolicy.split(entries, k -> entryRect(level, id, k), minEntries);
+
+        int sibling;
+        if (level == 0) {
+            // 원래 좌표를 복사해 두고 두 리프에 다시 채운다
+            double[] xy = Arrays.copyOfRange(leafXY, leafOff[id] * 2, (leafOff[id] + n) * 2);
+            sibling = allocLeaf();
+            moveRun(sibling, runCapacity(groups.get(1).size()));
+
+            // 원래 리프는 제 구간을 그대로 쓰고, 남는 뒤쪽은 garbage로 돌려준다
+            int cap = runCapacity(groups.get(0).size());
+            garbage += leafCap[id] - cap;
+            leafCap[id] = cap;
+            leafCount[id] = 0;
+            for (int k : groups.get(0)) {
+                appendPoint(id, xy[k * 2], xy[k * 2 + 1]);
+            }
+            for (int k : groups.get(1)) {
+                appendPoint(sibling, xy[k * 2], xy[k * 2 + 1]);
+            }
+        } else {
+            int[] kids = Arrays.copyOfRange(childIds, id * slots, id * slots + n);
+            sibling = allocInner(level);
+
+            innerCount[id] = 0;
+            for (int k : groups.get(0)) {
+                appendChild(id, kids[k]);
+            }
+            for (int k : groups.get(1)) {
+                appendChild(sibling, kids[k]);
+            }
+        }
+        recomputeBox(level, id);
+        recomputeBox(level, sibling);
+
+        int parent = parentOf(level, id);
+
+        // 루트 분할 → 새 루트
+        if (parent == NONE) {
+            int newRoot = allocInner(level + 1);
+            appendChild(newRoot, id);
+            appendChild(newRoot, sibling);
+            recomputeBox(level + 1, newRoot);
+            root = newRoot;
+            rootLevel = level + 1;
+            return;
+        }
+
+        appendChild(parent, sibling);
+        if (innerCount[parent] > maxEntries) {
+            split(level + 1, parent);
+        }
+    }
+
+    private Rectangle entryRect(int level, int id, int k) {
+        if (level == 0) {
+            int off = (leafOff[id] + k) * 2;
+            Point p = new Point(leafXY[off], leafXY[off + 1]);
+            return new Rectangle(p, p);
+        }
+        double[] cb = boxes(level - 1);
+        int b = childIds[id * slots + k] * 4;
+        return new Rectangle(new Point(cb[b], cb[b + 1]), new Point(cb[b + 2], cb[b + 3]));
+    }
+
+    // 리프 구간 끝에 점을 붙인다. 구간이 차 있으면 더 긴 구간으로 옮긴 뒤 붙인다.
+    private void appendPoint(int leaf, double x, double y) {
+        if (leafCount[leaf] == leafCap[leaf]) {
+            moveRun(leaf, runCapacity(leafCount[leaf] + 1));
+        }
+        int off = (leafOff[leaf] + leafCount[leaf]++) * 2;
+        leafXY[off] = x;
+        leafXY[off + 1] = y;
+    }
+
+    // 내부 노드 끝에 자식을 붙이고 자식의 parent를 갱신 (MBR은 호출한 쪽에서 처리)
+    private void appendChild(int node, int child) {
+        childIds[node * slots + innerCount[node]++] = child;
+        setParent(innerLevel[node] - 1, child, node);
+    }
+
+    // ======================================================================
+    //  Search (명시적 스택으로 순회하며 결과를 하나씩 만들어내는 lazy iterator)
+
+    @Override
+    public Iterator<Point> search(Rectangle rectangle) {
+        if (size == 0 || !intersects(boxes(rootLevel), root, rectangle)) {
+            return Collections.emptyIterator();
+        }
+        return new SearchIterator(rectangle);
+    }
+
+    private class SearchIterator implements Iterator<Point> {
+
+        // depth d의 노드 id와 다음에 볼 칸 번호 (depth d의 높이 = rootLevel - d)
+        private final int[] nodeStack = new int[rootLevel + 1];
+        private final int[] indexStack = new int[rootLevel + 1];
+        private int depth;
+        private final int topLevel = rootLevel;
+
+        private final double qMinX, qMinY, qMaxX, qMaxY;
+        private final Rectangle query;
+        private final int expectedModCount = modCount;
+
+        private boolean hasNext;
+        private double nextX, nextY;
+
+        SearchIterator(Rectangle query) {
+            this.query = query;
+            qMinX = query.getLeftTop().getX();
+            qMinY = query.getLeftTop().getY();
+            qMaxX = query.getRightBottom().getX();
+            qMaxY = query.getRightBottom().getY();
+            nodeStack[0] = root;
+            indexStack[0] = 0;
+            depth = 0;
+            advance();
+        }
+
+        private void advance() {
+            hasNext = false;
+            while (depth >= 0) {
+                int id = nodeStack[depth];
+                int level = topLevel - depth;
+
+                if (level == 0) {
+                    int base = leafOff[id] * 2;
+                    int i = indexStack[depth];
+                    while (i < leafCount[id]) {
+                        double x = leafXY[base + i * 2];
+                        double y = leafXY[base + i * 2 + 1];
+                        i++;
+                        if (x >= qMinX && x <= qMaxX && y >= qMinY && y <= qMaxY) {
+                            indexStack[depth] = i;
+                            nextX = x;
+                            nextY = y;
+                            hasNext = true;
+                            return;
+                        }
+                    }
+                    depth--;
+                    continue;
+                }
+
+                // 내부노드: 검색 범위와 겹치는 다음 자식으로 내려간다
+                double[] cb = boxes(level - 1);
+                int i = indexStack[depth];
+                int child = NONE;
+                while (i < innerCount[id]) {
+                    int c = childIds[id * slots + i++];
+                    if (intersects(cb, c, query)) {
+                        child = c;
+                        break;
+                    }
+                }
+                indexStack[depth] = i;
+                if (child == NONE) {
+                    depth--;
+                    continue;
+                }
+                depth++;
+                nodeStack[depth] = child;
+                indexStack[depth] = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            checkForComodification();
+            return hasNext;
+        }
+
+        @Override
+        public Point next() {
+            checkForComodification();
+            if (!hasNext) throw new NoSuchElementException();
+            Point p = new Point(nextX, nextY);
+            advance();
+            return p;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    // ======================================================================
+    //  KNN (제곱 거리 best-first, 노드/점 모두 long으로 인코딩해 primitive 힙에 넣는다)
+
+    @Override
+    public Iterator<Point> nearest(Point source, int maxCount) {
+        if (source == null || size == 0 || maxCount <= 0) {
+            return Collections.emptyIterator();
+        }
+
+        double px = source.getX();
+        double py = source.getY();
+
+        LongDistanceHeap heap = SCRATCH_HEAP.get();
+        heap.clear();
+        heap.push(minDistSq(boxes(rootLevel), root, px, py), (rootLevel == 0 ? TAG_LEAF : TAG_INNER) | root);
+
+        List<Point> result = new ArrayList<>(Math.min(maxCount, size));
+        while (!heap.isEmpty() && result.size() < maxCount) {
+            long top = heap.pop();
+            long tag = top & TAG_MASK;
+            int id = (int) (top & ~TAG_MASK);
+
+            if (tag == TAG_POINT) {
+                result.add(new Point(leafXY[id * 2], leafXY[id * 2 + 1]));
+            } else if (tag == TAG_LEAF) {
+                int base = leafOff[id];
+                for (int k = 0; k < leafCount[id]; k++) {
+                    double dx = leafXY[(base + k) * 2] - px;
+                    double dy = leafXY[(base + k) * 2 + 1] - py;
+                    heap.push(dx * dx + dy * dy, TAG_POINT | (base + k));
+                }
+            } else {
+                int childLevel = innerLevel[id] - 1;
+                double[] cb = boxes(childLevel);
+                long childTag = childLevel == 0 ? TAG_LEAF : TAG_INNER;
+                for (int k = 0; k < innerCount[id]; k++) {
+                    int c = childIds[id * slots + k];
+                    heap.push(minDistSq(cb, c, px, py), childTag | c);
+                }
+            }
+        }
+        heap.clear();
+        return result.iterator();
+    }
+
+    // ======================================================================
+    //  Delete (Condense Tree: 모자란 노드를 떼어내고 엔트리를 원래 높이에 재삽입)
+
+    @Override
+    public void delete(Point point) {
+        if (point == null || size == 0) return;
+
+        double x = point.getX();
+        double y = point.getY();
+
+        int leaf = findLeaf(x, y);
+        if (leaf == NONE) return;
+
+        // 지울 칸을 마지막 칸으로 덮어쓴다
+        int base = leafOff[leaf] * 2;
+        int last = leafCount[leaf] - 1;
+        for (int k = 0; k <= last; k++) {
+            if (leafXY[base + k * 2] == x && leafXY[base + k * 2 + 1] == y) {
+                leafXY[base + k * 2] = leafXY[base + last * 2];
+                leafXY[base + k * 2 + 1] = leafXY[base + last * 2 + 1];
+                break;
+            }
+        }
+        leafCount[leaf] = last;
+        size--;
+        modCount++;
+
+        condenseTree(leaf);
+    }
+
+    // (x, y)를 갖는 리프 id, 없으면 NONE
+    private int findLeaf(double x, double y) {
+        if (!containsPoint(boxes(rootLevel), root, x, y)) return NONE;
+        return findLeaf(rootLevel, root, x, y);
+    }
+
+    private int findLeaf(int level, int id, double x, double y) {
+        if (level == 0) {
+            int base = leafOff[id] * 2;
+            for (int k = 0; k < leafCount[id]; k++) {
+                if (leafXY[base + k * 2] == x && leafXY[base + k * 2 + 1] == y) return id;
+            }
+            return NONE;
+        }
+
+        double[] cb = boxes(level - 1);
+        for (int k = 0; k < innerCount[id]; k++) {
+            int c = childIds[id * slots + k];
+            if (containsPoint(cb, c, x, y)) {
+                int found = findLeaf(level - 1, c, x, y);
+                if (found != NONE) return found;
+            }
+        }
+        return NONE;
+    }
+
+    private void condenseTree(int leaf) {
+        // 떼어낸 노드 {높이, id}
+        List<int[]> orphans = new ArrayList<>();
+
+        int level = 0;
+        int id = leaf;
+        while (id != root || level != rootLevel) {
+            int parent = parentOf(level, id);
+            if (count(level, id) < minEntries) {
+                removeChild(parent, id);
+                orphans.add(new int[]{level, id});
+            } else {
+                recomputeBox(level, id);
+            }
+            id = parent;
+            level++;
+        }
+        recomputeBox(rootLevel, root);
+
+        // 루트 내부 노드가 비었으면 빈 리프로 되돌린다
+        if (rootLevel > 0 && innerCount[root] == 0) {
+            freeNode(rootLevel, root);
+            root = allocLeaf();
+            rootLevel = 0;
+        }
+
+        // 떼어낸 노드의 엔트리 재삽입 (리프는 점, 내부 노드는 자식 서브트리를 같은 높이에)
+        for (int[] orphan : orphans) {
+            int oLevel = orphan[0];
+            int oId = orphan[1];
+            if (oLevel == 0) {
+                reinsertPointsOf(0, oId);       // 점을 다시 넣고 리프도 해제한다
+            } else {
+                for (int k = 0; k < innerCount[oId]; k++) {
+                    insertSubtree(oLevel - 1, childIds[oId * slots + k]);
+                }
+                freeNode(oLevel, oId);
+            }
+        }
+
+        // 자식이 하나뿐인 루트는 내린다
+        while (rootLevel > 0 && innerCount[root] == 1) {
+            int child = childIds[root * slots];
+            freeNode(rootLevel, root);
+            root = child;
+            rootLevel--;
+            setParent(rootLevel, root, NONE);
+        }
+    }
+
+    private void removeChild(int parent, int child) {
+        int base = parent * slots;
+        int last = innerCount[parent] - 1;
+        for (int k = 0; k <= last; k++) {
+            if (childIds[base + k] == child) {
+                childIds[base + k] = childIds[base + last];
+                break;
+            }
+        }
+        innerCount[parent] = last;
+    }
+
+    // 서브트리(level 높이의 노드 id)를 같은 높이를 유지하도록 다시 매단다
+    private void insertSubtree(int level, int id) {
+        // 트리가 그만큼 높지 않으면 점 단위로 풀어서 넣는다
+        if (level + 1 > rootLevel) {
+            reinsertPointsOf(level, id);
+            return;
+        }
+
+        double[] b = boxes(level);
+        int o = id * 4;
+        int parent = chooseNode(b[o], b[o + 1], b[o + 2], b[o + 3], level + 1);
+        appendChild(parent, id);
+
+        // 루트까지 MBR 확장
+        for (int p = parent; p != NONE; p = innerParent[p]) {
+            includeBox(innerBox, p, b[o], b[o + 1], b[o + 2], b[o + 3]);
+        }
+
+        if (innerCount[parent] > maxEntries) {
+            split(level + 1, parent);
+        }
+    }
+
+    private void reinsertPointsOf(int level, int id) {
+        if (level == 0) {
+            // insertPoint가 풀을 다시 채울 수 있으므로 구간 위치는 매번 다시 읽는다
+            for (int k = 0; k < leafCount[id]; k++) {
+                int off = (leafOff[id] + k) * 2;
+                insertPoint(leafXY[off], leafXY[off + 1]);
+            }
+        } else {
+            for (int k = 0; k < innerCount[id]; k++) {
+                reinsertPointsOf(level - 1, childIds[id * slots + k]);
+            }
+        }
+        freeNode(level, id);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
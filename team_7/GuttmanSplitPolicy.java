@@ -0,0 +1,81 @@
+package org.dfpl.dbp.rtree.team_7;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Guttman 분할(Linear / Quadratic)의 공통 뼈대.
+ * seed 두 개를 고른 뒤 남은 엔트리를 하나씩 면적 확장량이 작은 그룹에 배정한다.
+ * seed 선택(pickSeeds)과 다음 엔트리 선택(pickNext)만 하위 클래스에서 정한다.
+ */
+abstract class GuttmanSplitPolicy implements SplitPolicy {
+
+    // rects 중 seed로 쓸 두 인덱스
+    abstract int[] pickSeeds(List<Rectangle> rects);
+
+    // 남은 엔트리(remaining의 인덱스) 중 다음에 배정할 것의 위치
+    abstract int pickNext(List<Rectangle> rects, List<Integer> remaining, Rectangle mbr1, Rectangle mbr2);
+
+    @Override
+    public <T> List<List<T>> split(List<T> entries, Function<T, Rectangle> rectOf, int minEntries) {
+        List<Rectangle> rects = new ArrayList<>(entries.size());
+        for (T e : entries) {
+            rects.add(rectOf.apply(e));
+        }
+
+        int[] seeds = pickSeeds(rects);
+
+        List<T> group1 = new ArrayList<>();
+        List<T> group2 = new ArrayList<>();
+        group1.add(entries.get(seeds[0]));
+        group2.add(entries.get(seeds[1]));
+        Rectangle mbr1 = rects.get(seeds[0]);
+        Rectangle mbr2 = rects.get(seeds[1]);
+
+        List<Integer> remaining = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            if (i != seeds[0] && i != seeds[1]) remaining.add(i);
+        }
+
+        while (!remaining.isEmpty()) {
+            // 한쪽 그룹이 남은 엔트리를 모두 받아야 minEntries를 채울 수 있다면 그쪽으로 전부 배정
+            if (group1.size() + remaining.size() == minEntries) {
+                for (int i : remaining) group1.add(entries.get(i));
+                break;
+            }
+            if (group2.size() + remaining.size() == minEntries) {
+                for (int i : remaining) group2.add(entries.get(i));
+                break;
+            }
+
+            int idx = remaining.remove(pickNext(rects, remaining, mbr1, mbr2));
+            Rectangle r = rects.get(idx);
+
+            // 확장량이 작은 그룹 → 동률이면 면적이 작은 그룹 → 그래도 동률이면 엔트리가 적은 그룹
+            double d1 = mbr1.enlargement(r);
+            double d2 = mbr2.enlargement(r);
+            boolean toFirst;
+            if (d1 != d2) {
+                toFirst = d1 < d2;
+            } else if (mbr1.area() != mbr2.area()) {
+                toFirst = mbr1.area() < mbr2.area();
+            } else {
+                toFirst = group1.size() <= group2.size();
+            }
+
+            if (toFirst) {
+                group1.add(entries.get(idx));
+                mbr1 = mbr1.union(r);
+            } else {
+                group2.add(entries.get(idx));
+                mbr2 = mbr2.union(r);
+            }
+        }
+
+        List<List<T>> groups = new ArrayList<>();
+        groups.add(group1);
+        groups.add(group2);
+        return groups;
+    }
+}
@@ -0,0 +1,53 @@
+package org.dfpl.dbp.rtree.team_7;
+
+/**
+ * 2차원 좌표를 Hilbert 곡선 상의 순서값으로 바꿔주는 유틸리티.
+ * Hilbert 값이 가까운 점들은 공간상으로도 가깝기 때문에 정렬 기준으로 쓰면 공간 지역성이 좋아진다.
+ */
+public final class HilbertCurve {
+
+    // 각 축을 2^ORDER 칸으로 나눈다 (2 * 16 = 32bit → long에 여유 있게 들어감)
+    public static final int ORDER = 16;
+
+    private static final long SIDE = 1L << ORDER;
+
+    private HilbertCurve() {
+    }
+
+    /**
+     * 격자 좌표 (x, y)의 Hilbert 순서값. x, y는 [0, 2^ORDER) 범위.
+     */
+    public static long index(long x, long y) {
+        long d = 0;
+        for (long s = SIDE / 2; s > 0; s /= 2) {
+            long rx = (x & s) > 0 ? 1 : 0;
+            long ry = (y & s) > 0 ? 1 : 0;
+            d += s * s * ((3 * rx) ^ ry);
+
+            // 사분면 회전
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = s - 1 - x;
+                    y = s - 1 - y;
+                }
+                long t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return d;
+    }
+
+    /**
+     * 실수 좌표 (x, y)를 [minX, maxX] x [minY, maxY] 영역 기준 격자로 정규화한 뒤 Hilbert 순서값을 구한다.
+     */
+    public static long index(double x, double y, double minX, double minY, double maxX, double maxY) {
+        return index(toGrid(x, minX, maxX), toGrid(y, minY, maxY));
+    }
+
+    private static long toGrid(double v, double min, double max) {
+        if (max <= min) return 0;
+        long g = (long) ((v - min) / (max - min) * (SIDE - 1));
+        return Math.max(0, Math.min(SIDE - 1, g));
+    }
+}
@@ -0,0 +1,575 @@
+package org.dfpl.dbp.rtree.team_7;
+
+import java.util.*;
+
+/**
+ * Hilbert R-tree (Kamel & Faloutsos).
+ *
+ * 모든 엔트리를 좌표의 Hilbert 값 순서로 정렬해 둔다. 리프의 점은 자기 Hilbert 값으로,
+ * 내부 노드의 자식은 LHV(서브트리 안 가장 큰 Hilbert 값)로 정렬되므로 트리 전체가 하나의 정렬된 순서를 이룬다.
+ * - 삽입: 루트에서부터 LHV가 점의 Hilbert 값 이상인 첫 자식으로 내려간다 (면적 계산 없음).
+ * - overflow: 바로 분할하지 않고 이웃 형제 하나와 엔트리를 고르게 나눈다. 형제도 가득 차 있을 때만
+ *   두 노드를 세 노드로 나눈다 (2-to-3 split). 그래서 노드가 보통 2/3 이상, 대개 거의 꽉 찬다.
+ * - underflow: 이웃 형제와 나누거나, 합쳐도 넘치지 않으면 합친다.
+ *
+ * Hilbert 값은 생성자에서 받은 bounds 기준 격자(HilbertCurve.ORDER)로 구한다.
+ * bounds 밖의 점도 가장자리 격자로 잘려 들어가므로 결과는 맞고, 정렬의 지역성만 떨어진다.
+ * 같은 x, y 값을 갖는 Point는 한 번만 들어가며, 중복 검사는 Hilbert 값으로 바로 내려가므로 트리 전체에 대해 정확하다.
+ */
+public class HilbertRTree implements RTree {
+
+    private final Rectangle bounds;
+    private final double minX, minY, maxX, maxY;
+    private final int maxEntries;
+    private final int minEntries;
+
+    private Node root;
+    private int size;
+
+    // 트리 구조가 바뀔 때마다 증가 (search iterator가 순회 중 변경을 감지하는 데 사용)
+    private int modCount;
+
+    public HilbertRTree(Rectangle bounds) {
+        this(bounds, RTreeNode.MAX);
+    }
+
+    public HilbertRTree(Rectangle bounds, int maxEntries) {
+        this(bounds, maxEntries, maxEntries / 2);
+    }
+
+    public HilbertRTree(Rectangle bounds, int maxEntries, int minEntries) {
+        if (bounds == null) {
+            throw new IllegalArgumentException("bounds must not be null");
+        }
+        if (maxEntries < 2) {
+            throw new IllegalArgumentException("maxEntries must be at least 2: " + maxEntries);
+        }
+        if (minEntries < 1 || minEntries > maxEntries / 2) {
+            throw new IllegalArgumentException("minEntries must be in [1, maxEntries / 2]: " + minEntries);
+        }
+        this.bounds = bounds;
+        this.minX = bounds.getLeftTop().getX();
+        this.minY = bounds.getLeftTop().getY();
+        this.maxX = bounds.getRightBottom().getX();
+        this.maxY = bounds.getRightBottom().getY();
+        this.maxEntries = maxEntries;
+        this.minEntries = minEntries;
+        this.root = new Node(true, maxEntries + 1);
+    }
+
+    // ======================================================================
+    //  Node
+
+    static final class Node {
+
+        final boolean isLeaf;
+        Node parent;
+        int size;
+
+        // 리프: 점의 Hilbert 값, 내부: 자식의 LHV. 항상 오름차순.
+        final long[] keys;
+        final Point[] points;
+        final Node[] children;
+
+        double minX, minY, maxX, maxY;
+
+        // 칸 수는 maxEntries + 1 (overflow 처리 직전에 한 칸 넘칠 수 있다)
+        Node(boolean isLeaf, int capacity) {
+            this.isLeaf = isLeaf;
+            this.keys = new long[capacity];
+            this.points = isLeaf ? new Point[capacity] : null;
+            this.children = isLeaf ? null : new Node[capacity];
+        }
+
+        long lhv() {
+            return size == 0 ? Long.MIN_VALUE : keys[size - 1];
+        }
+
+        // 엔트리로부터 MBR과 (내부 노드면) 자식 LHV를 다시 계산
+        void refresh() {
+            double x1 = Double.POSITIVE_INFINITY, y1 = Double.POSITIVE_INFINITY;
+            double x2 = Double.NEGATIVE_INFINITY, y2 = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < size; i++) {
+                if (isLeaf) {
+                    Point p = points[i];
+                    x1 = Math.min(x1, p.getX());
+                    y1 = Math.min(y1, p.getY());
+                    x2 = Math.max(x2, p.getX());
+                    y2 = Math.max(y2, p.getY());
+                } else {
+                    Node c = children[i];
+                    keys[i] = c.lhv();
+                    x1 = Math.min(x1, c.minX);
+                    y1 = Math.min(y1, c.minY);
+                    x2 = Math.max(x2, c.maxX);
+                    y2 = Math.max(y2, c.maxY);
+                }
+            }
+            minX = x1;
+            minY = y1;
+            maxX = x2;
+            maxY = y2;
+        }
+
+        boolean contains(double x, double y) {
+            return x >= minX && x <= maxX && y >= minY && y <= maxY;
+        }
+
+        boolean intersects(double qMinX, double qMinY, double qMaxX, double qMaxY) {
+            return minX <= qMaxX && maxX >= qMinX && minY <= qMaxY && maxY >= qMinY;
+        }
+
+        double minDistSq(double px, double py) {
+            double dx = px < minX ? minX - px : (px > maxX ? px - maxX : 0);
+            double dy = py < minY ? minY - py : (py > maxY ? py - maxY : 0);
+            return dx * dx + dy * dy;
+        }
+
+        int indexOf(Node child) {
+            for (int i = 0; i < size; i++) {
+                if (children[i] == child) return i;
+            }
+            return -1;
+        }
+
+        void insertChild(int pos, Node child) {
+            System.arraycopy(children, pos, children, pos + 1, size - pos);
+            System.arraycopy(keys, pos, keys, pos + 1, size - pos);
+            children[pos] = child;
+            keys[pos] = child.lhv();
+            child.parent = this;
+            size++;
+        }
+
+        void removeAt(int pos) {
+            int tail = size - pos - 1;
+            if (isLeaf) {
+                System.arraycopy(points, pos + 1, points, pos, tail);
+                points[size - 1] = null;
+            } else {
+                System.arraycopy(children, pos + 1, children, pos, tail);
+                children[size - 1] = null;
+            }
+            System.arraycopy(keys, pos + 1, keys, pos, tail);
+            size--;
+        }
+    }
+
+    private long hilbert(double x, double y) {
+        return HilbertCurve.index(x, y, minX, minY, maxX, maxY);
+    }
+
+    public Rectangle getBounds() {
+        return bounds;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // ======================================================================
+    //  Insert
+
+    @Override
+    public void add(Point point) {
+        if (point == null) return;
+
+        long h = hilbert(point.getX(), point.getY());
+        if (findLeaf(root, point, h) != null) return;
+
+        // LHV가 h 이상인 첫 자식으로 내려간다 (없으면 마지막 자식)
+        Node node = root;
+        while (!node.isLeaf) {
+            int i = 0;
+            while (i < node.size - 1 && node.keys[i] < h) i++;
+            node = node.children[i];
+        }
+
+        // 리프 안에서도 Hilbert 순서 유지 (같은 값이면 뒤에)
+        int pos = node.size;
+        while (pos > 0 && node.keys[pos - 1] > h) pos--;
+        System.arraycopy(node.points, pos, node.points, pos + 1, node.size - pos);
+        System.arraycopy(node.keys, pos, node.keys, pos + 1, node.size - pos);
+        node.points[pos] = point;
+        node.keys[pos] = h;
+        node.size++;
+
+        size++;
+        modCount++;
+
+        if (node.size > maxEntries) {
+            handleOverflow(node);
+        } else {
+            refreshUp(node);
+        }
+    }
+
+    // 넘친 노드: 형제에게 나눠 주고, 형제도 가득이면 2-to-3 분할. 부모가 넘치면 위로 반복.
+    private void handleOverflow(Node node) {
+        Node parent = node.parent;
+
+        if (parent == null) {
+            // 루트: 둘로 나눠 새 루트 아래에 둔다
+            Node sibling = new Node(node.isLeaf, maxEntries + 1);
+            redistribute(new Node[]{node, sibling});
+
+            Node newRoot = new Node(false, maxEntries + 1);
+            newRoot.insertChild(0, node);
+            newRoot.insertChild(1, sibling);
+            newRoot.refresh();
+            root = newRoot;
+            return;
+        }
+
+        int i = parent.indexOf(node);
+        int j = i + 1 < parent.size ? i + 1 : i - 1;   // 협력 형제: 오른쪽, 없으면 왼쪽
+        if (j < 0) {
+            // 형제가 없으면 (minEntries == 1인 내부 노드) 바로 둘로 나눈다
+            Node sibling = new Node(node.isLeaf, maxEntries + 1);
+            redistribute(new Node[]{node, sibling});
+            parent.insertChild(i + 1, sibling);
+        } else {
+            Node left = parent.children[Math.min(i, j)];
+            Node right = parent.children[Math.max(i, j)];
+            Node sibling = parent.children[j];
+
+            if (sibling.size < maxEntries) {
+                redistribute(new Node[]{left, right});
+                refreshUp(parent);
+                return;
+            }
+
+            // 둘 다 가득: 2M + 1개를 세 노드에 고르게
+            Node fresh = new Node(node.isLeaf, maxEntries + 1);
+            redistribute(new Node[]{left, right, fresh});
+            parent.insertChild(Math.max(i, j) + 1, fresh);
+        }
+
+        parent.refresh();
+        if (parent.size > maxEntries) {
+            handleOverflow(parent);
+        } else {
+            refreshUp(parent);
+        }
+    }
+
+    // 이웃한 노드들의 엔트리를 Hilbert 순서 그대로 모아 앞에서부터 고르게 다시 나눈다
+    private void redistribute(Node[] nodes) {
+        int total = 0;
+        for (Node n : nodes) {
+            n.refresh();
+            total += n.size;
+        }
+
+        boolean leaf = nodes[0].isLeaf;
+        long[] keys = new long[total];
+        Point[] points = leaf ? new Point[total] : null;
+        Node[] children = leaf ? null : new Node[total];
+
+        int k = 0;
+        for (Node n : nodes) {
+            System.arraycopy(n.keys, 0, keys, k, n.size);
+            if (leaf) {
+                System.arraycopy(n.points, 0, points, k, n.size);
+                Arrays.fill(n.points, 0, n.size, null);
+            } else {
+                System.arraycopy(n.children, 0, children, k, n.size);
+                Arrays.fill(n.children, 0, n.size, null);
+            }
+            k += n.size;
+        }
+
+        k = 0;
+        for (int t = 0; t < nodes.length; t++) {
+            Node n = nodes[t];
+            int share = total / nodes.length + (t < total % nodes.length ? 1 : 0);
+            System.arraycopy(keys, k, n.keys, 0, share);
+            if (leaf) {
+                System.arraycopy(points, k, n.points, 0, share);
+            } else {
+                System.arraycopy(children, k, n.children, 0, share);
+                for (int c = 0; c < share; c++) n.children[c].parent = n;
+            }
+            n.size = share;
+            n.refresh();
+            k += share;
+        }
+    }
+
+    private void refreshUp(Node node) {
+        for (Node n = node; n != null; n = n.parent) {
+            n.refresh();
+        }
+    }
+
+    // ======================================================================
+    //  Delete
+
+    @Override
+    public void delete(Point point) {
+        if (point == null) return;
+
+        long h = hilbert(point.getX(), point.getY());
+        Node leaf = findLeaf(root, point, h);
+        if (leaf == null) return;
+
+        for (int i = 0; i < leaf.size; i++) {
+            Point p = leaf.points[i];
+            if (p.getX() == point.getX() && p.getY() == point.getY()) {
+                leaf.removeAt(i);
+                break;
+            }
+        }
+        size--;
+        modCount++;
+
+        handleUnderflow(leaf);
+    }
+
+    // 모자란 노드: 형제와 나눠 가지거나, 합쳐도 넘치지 않으면 합친다. 합쳐서 부모가 모자라면 위로 반복.
+    private void handleUnderflow(Node node) {
+        if (node == root) {
+            while (!root.isLeaf && root.size == 1) {
+                root = root.children[0];
+                root.parent = null;
+            }
+            if (!root.isLeaf && root.size == 0) {
+                root = new Node(true, maxEntries + 1);
+            }
+            root.refresh();
+            return;
+        }
+        if (node.size >= minEntries) {
+            refreshUp(node);
+            return;
+        }
+
+        Node parent = node.parent;
+        int i = parent.indexOf(node);
+        int j = i + 1 < parent.size ? i + 1 : i - 1;
+        if (j < 0) {
+            if (node.size == 0) {
+                parent.removeAt(i);
+                handleUnderflow(parent);
+            } else {
+                refreshUp(node);
+            }
+            return;
+        }
+
+        Node left = parent.children[Math.min(i, j)];
+        Node right = parent.children[Math.max(i, j)];
+        if (node.size + parent.children[j].size >= 2 * minEntries) {
+            redistribute(new Node[]{left, right});
+            refreshUp(parent);
+            return;
+        }
+
+        // 합쳐도 2 * minEntries - 1 <= maxEntries 이므로 한 노드에 들어간다
+        merge(left, right);
+        parent.removeAt(Math.max(i, j));
+        parent.refresh();
+        handleUnderflow(parent);
+    }
+
+    // right의 엔트리를 모두 left 뒤에 붙인다 (Hilbert 순서 유지)
+    private void merge(Node left, Node right) {
+        for (int k = 0; k < right.size; k++) {
+            left.keys[left.size] = right.keys[k];
+            if (left.isLeaf) {
+                left.points[left.size] = right.points[k];
+            } else {
+                left.children[left.size] = right.children[k];
+                right.children[k].parent = left;
+            }
+            left.size++;
+        }
+        right.size = 0;
+        left.refresh();
+    }
+
+    // Hilbert 값 h인 점을 가진 리프. 자식 i에는 (keys[i-1], keys[i]] 범위의 값만 있으므로
+    // 같은 값이 경계에 걸친 경우를 빼면 한 경로만 내려간다.
+    private Node findLeaf(Node node, Point target, long h) {
+        if (node.size == 0 || !node.contains(target.getX(), target.getY())) return null;
+
+        if (node.isLeaf) {
+            for (int i = 0; i < node.size; i++) {
+                if (node.keys[i] != h) continue;
+                Point p = node.points[i];
+                if (p.getX() == target.getX() && p.getY() == target.getY()) return node;
+            }
+            return null;
+        }
+
+        for (int i = 0; i < node.size; i++) {
+            if (node.keys[i] < h) continue;
+            if (i > 0 && node.keys[i - 1] > h) break;
+            Node found = findLeaf(node.children[i], target, h);
+            if (found != null) return found;
+        }
+        return null;
+    }
+
+    // ======================================================================
+    //  Search / KNN
+
+    @Override
+    public Iterator<Point> search(Rectangle rectangle) {
+        if (rectangle == null || size == 0) return Collections.emptyIterator();
+        return new SearchIterator(rectangle);
+    }
+
+    @Override
+    public Iterator<Point> nearest(Point source, int maxCount) {
+        if (source == null || size == 0 || maxCount <= 0) return Collections.emptyIterator();
+
+        double sx = source.getX();
+        double sy = source.getY();
+
+        DistanceHeap heap = new DistanceHeap();
+        heap.push(root.minDistSq(sx, sy), root);
+
+        List<Point> result = new ArrayList<>(Math.min(maxCount, size));
+        while (!heap.isEmpty() && result.size() < maxCount) {
+            Object top = heap.pop();
+            if (top instanceof Point) {
+                result.add((Point) top);
+                continue;
+            }
+
+            Node node = (Node) top;
+            for (int i = 0; i < node.size; i++) {
+                if (node.isLeaf) {
+                    Point p = node.points[i];
+                    double dx = p.getX() - sx;
+                    double dy = p.getY() - sy;
+                    heap.push(dx * dx + dy * dy, p);
+                } else {
+                    Node c = node.children[i];
+                    heap.push(c.minDistSq(sx, sy), c);
+                }
+            }
+        }
+        return result.iterator();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 노드 채움률 (노드당 평균 엔트리 수 / maxEntries). 루트는 제외한다.
+     *
+     * @return 0 ~ 1
+     */
+    public double utilization() {
+        long[] acc = new long[2];   // {엔트리 수 합, 노드 수}
+        if (!root.isLeaf) {
+            for (int i = 0; i < root.size; i++) {
+                utilization(root.children[i], acc);
+            }
+        }
+        return acc[1] == 0 ? 1 : (double) acc[0] / (acc[1] * (double) maxEntries);
+    }
+
+    private void utilization(Node node, long[] acc) {
+        acc[0] += node.size;
+        acc[1]++;
+        if (node.isLeaf) return;
+        for (int i = 0; i < node.size; i++) {
+            utilization(node.children[i], acc);
+        }
+    }
+
+    // 같은 패키지의 검증 / 도구용
+    Node getRoot() {
+        return root;
+    }
+
+    // 범위 검색 lazy iterator. 순회 도중 트리가 바뀌면 ConcurrentModificationException.
+    private class SearchIterator implements Iterator<Point> {
+
+        private final Deque<Node> nodeStack = new ArrayDeque<>();
+        private final Deque<Integer> indexStack = new ArrayDeque<>();
+        private final double qMinX, qMinY, qMaxX, qMaxY;
+        private final int expectedModCount;
+        private Point next;
+
+        SearchIterator(Rectangle query) {
+            qMinX = query.getLeftTop().getX();
+            qMinY = query.getLeftTop().getY();
+            qMaxX = query.getRightBottom().getX();
+            qMaxY = query.getRightBottom().getY();
+            expectedModCount = modCount;
+
+            if (root.intersects(qMinX, qMinY, qMaxX, qMaxY)) {
+                nodeStack.push(root);
+                indexStack.push(0);
+            }
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (!nodeStack.isEmpty()) {
+                Node node = nodeStack.peek();
+                int i = indexStack.pop();
+
+                if (node.isLeaf) {
+                    while (i < node.size) {
+                        Point p = node.points[i++];
+                        double x = p.getX();
+                        double y = p.getY();
+                        if (x >= qMinX && x <= qMaxX && y >= qMinY && y <= qMaxY) {
+                            indexStack.push(i);
+                            next = p;
+                            return;
+                        }
+                    }
+                    nodeStack.pop();
+                    continue;
+                }
+
+                Node child = null;
+                while (i < node.size) {
+                    Node c = node.children[i++];
+                    if (c.intersects(qMinX, qMinY, qMaxX, qMaxY)) {
+                        child = c;
+                        break;
+                    }
+                }
+                indexStack.push(i);
+                if (child == null) {
+                    nodeStack.pop();
+                    indexStack.pop();
+                    continue;
+                }
+                nodeStack.push(child);
+                indexStack.push(0);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            checkForComodification();
+            return next != null;
+        }
+
+        @Override
+        public Point next() {
+            checkForComodification();
+            if (next == null) throw new NoSuchElementException();
+            Point p = next;
+            advance();
+            return p;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
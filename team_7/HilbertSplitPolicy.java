@@ -0,0 +1,53 @@
+package org.dfpl.dbp.rtree.team_7;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Hilbert 순서 분할.
+ * 엔트리 MBR 중심의 Hilbert 값으로 정렬한 뒤 가운데에서 자른다. 정렬 한 번이면 되므로 가장 싸다.
+ */
+public class HilbertSplitPolicy implements SplitPolicy {
+
+    @Override
+    public <T> List<List<T>> split(List<T> entries, Function<T, Rectangle> rectOf, int minEntries) {
+        int n = entries.size();
+        double[] cx = new double[n];
+        double[] cy = new double[n];
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+
+        for (int i = 0; i < n; i++) {
+            Rectangle r = rectOf.apply(entries.get(i));
+            cx[i] = (r.getLeftTop().getX() + r.getRightBottom().getX()) / 2;
+            cy[i] = (r.getLeftTop().getY() + r.getRightBottom().getY()) / 2;
+            minX = Math.min(minX, cx[i]);
+            minY = Math.min(minY, cy[i]);
+            maxX = Math.max(maxX, cx[i]);
+            maxY = Math.max(maxY, cy[i]);
+        }
+
+        // 노드 내부 영역 기준으로 정규화한 Hilbert 값
+        long[] keys = new long[n];
+        List<Integer> order = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            keys[i] = HilbertCurve.index(cx[i], cy[i], minX, minY, maxX, maxY);
+            order.add(i);
+        }
+        order.sort(Comparator.comparingLong(i -> keys[i]));
+
+        int cut = Math.max(minEntries, n / 2);
+        List<T> group1 = new ArrayList<>();
+        List<T> group2 = new ArrayList<>();
+        for (int k = 0; k < n; k++) {
+            (k < cut ? group1 : group2).add(entries.get(order.get(k)));
+        }
+
+        List<List<T>> groups = new ArrayList<>();
+        groups.add(group1);
+        groups.add(group2);
+        return groups;
+    }
+}
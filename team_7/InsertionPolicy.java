@@ -0,0 +1,20 @@
+package org.dfpl.dbp.rtree.team_7;
+
+/**
+ * RTreeImpl의 삽입 정책.
+ */
+public enum InsertionPolicy {
+
+    /**
+     * 기존 방식 (Guttman). 면적 확장량이 가장 작은 자식을 고르고, overflow가 나면 바로 분할한다.
+     * 분할 전략을 따로 주지 않으면 LinearSplitPolicy를 사용한다.
+     */
+    LINEAR,
+
+    /**
+     * R*-tree 방식. 리프 바로 위 레벨에서는 겹침(overlap) 증가량이 가장 작은 자식을 고르고,
+     * 레벨마다 첫 overflow에서는 일부 엔트리를 강제 재삽입한다.
+     * 분할 전략을 따로 주지 않으면 RStarSplitPolicy(margin 기준 축 선택)를 사용한다.
+     */
+    RSTAR
+}
@@ -0,0 +1,186 @@
+package org.dfpl.dbp.rtree.team_7;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * All-k-nearest-neighbors / KNN 조인.
+ *
+ * 왼쪽 트리의 리프 하나를 단위로 처리한다. 리프의 MBR에서 가까운 순서(best-first)로 오른쪽 트리의 노드를 펼치고,
+ * 리프 안 모든 점의 현재 k번째 거리 중 최댓값을 공통 가지치기 기준으로 쓴다.
+ * 상위 레벨 탐색은 점마다가 아니라 리프마다 한 번만 하게 된다.
+ *
+ * 결과는 리프 하나가 끝날 때마다 consumer로 바로 넘긴다 (점 하나당 한 번, 가까운 순서의 리스트).
+ * parallel이면 리프 단위로 여러 스레드에서 처리하므로 consumer는 thread-safe 해야 한다.
+ * 처리하는 동안 두 트리를 바꾸면 안 된다.
+ */
+public final class KnnJoin {
+
+    // 스레드마다 하나씩 두고 돌려 쓰는 노드 힙
+    private static final ThreadLocal<DistanceHeap> SCRATCH_HEAP = ThreadLocal.withInitial(DistanceHeap::new);
+
+    private KnnJoin() {
+    }
+
+    /**
+     * tree의 모든 점에 대해 자기 자신을 뺀 k개의 최근접 이웃을 구한다.
+     *
+     * @param tree
+     * @param k
+     * @param parallel
+     * @param consumer (점, 가까운 순서의 이웃 리스트)
+     */
+    public static void allNearest(RTreeImpl tree, int k, boolean parallel, BiConsumer<Point, List<Point>> consumer) {
+        join(tree, tree, k, true, parallel, consumer);
+    }
+
+    /**
+     * left의 모든 점에 대해 right에서 가장 가까운 k개의 점을 구한다.
+     *
+     * @param left
+     * @param right
+     * @param k
+     * @param parallel
+     * @param consumer (left의 점, right에서 가까운 순서의 점 리스트)
+     */
+    public static void knnJoin(RTreeImpl left, RTreeImpl right, int k, boolean parallel,
+                               BiConsumer<Point, List<Point>> consumer) {
+        join(left, right, k, false, parallel, consumer);
+    }
+
+    private static void join(RTreeImpl left, RTreeImpl right, int k, boolean excludeSelf, boolean parallel,
+                             BiConsumer<Point, List<Point>> consumer) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+
+        List<RTreeNode> leaves = new ArrayList<>();
+        collectLeaves(left.getRoot(), leaves);
+
+        RTreeNode rightRoot = right.getRoot();
+        Stream<RTreeNode> stream = parallel ? leaves.parallelStream() : leaves.stream();
+        stream.forEach(leaf -> processLeaf(leaf, rightRoot, k, excludeSelf, consumer));
+    }
+
+    private static void collectLeaves(RTreeNode node, List<RTreeNode> out) {
+        if (node == null) return;
+        if (node.isLeaf) {
+            if (!node.points.isEmpty()) out.add(node);
+            return;
+        }
+        for (RTreeNode child : node.children) {
+            collectLeaves(child, out);
+        }
+    }
+
+    // ======================================================================
+    //  리프 하나 처리
+
+    private static void processLeaf(RTreeNode leaf, RTreeNode rightRoot, int k, boolean excludeSelf,
+                                    BiConsumer<Point, List<Point>> consumer) {
+        List<Point> queries = leaf.points;
+        Neighbors[] neighbors = new Neighbors[queries.size()];
+        for (int i = 0; i < neighbors.length; i++) {
+            neighbors[i] = new Neighbors(queries.get(i), k);
+        }
+
+        if (rightRoot != null && rightRoot.mbr != null) {
+            DistanceHeap heap = SCRATCH_HEAP.get();
+            heap.clear();
+            heap.push(minDistSq(leaf.mbr, rightRoot.mbr), rightRoot);
+
+            // 리프 안 모든 점의 k번째 거리 중 최댓값. 이보다 먼 노드는 어떤 점의 결과도 바꾸지 못한다.
+            double bound = Double.POSITIVE_INFINITY;
+            while (!heap.isEmpty() && heap.peekKey() <= bound) {
+                RTreeNode node = (RTreeNode) heap.pop();
+
+                if (!node.isLeaf) {
+                    for (RTreeNode c : node.children) {
+                        if (c.mbr == null) continue;
+                        double d = minDistSq(leaf.mbr, c.mbr);
+                        if (d <= bound) heap.push(d, c);
+                    }
+                    continue;
+                }
+
+                for (Neighbors n : neighbors) {
+                    n.scan(node, excludeSelf);
+                }
+                bound = 0;
+                for (Neighbors n : neighbors) {
+                    bound = Math.max(bound, n.bound());
+                }
+            }
+            heap.clear();
+        }
+
+        for (Neighbors n : neighbors) {
+            consumer.accept(n.query, n.toList());
+        }
+    }
+
+    // 두 MBR 사이의 최소 거리 제곱 (겹치면 0)
+    private static double minDistSq(Rectangle r, Rectangle s) {
+        double dx = Math.max(0, Math.max(r.getLeftTop().getX() - s.getRightBottom().getX(),
+                s.getLeftTop().getX() - r.getRightBottom().getX()));
+        double dy = Math.max(0, Math.max(r.getLeftTop().getY() - s.getRightBottom().getY(),
+                s.getLeftTop().getY() - r.getRightBottom().getY()));
+        return dx * dx + dy * dy;
+    }
+
+    // 점 하나의 현재 k개 후보 (거리 오름차순 배열, k가 작으므로 삽입 정렬)
+    private static final class Neighbors {
+        final Point query;
+        final double[] dist;
+        final Point[] points;
+        int size;
+
+        Neighbors(Point query, int k) {
+            this.query = query;
+            this.dist = new double[k];
+            this.points = new Point[k];
+        }
+
+        double bound() {
+            return size < dist.length ? Double.POSITIVE_INFINITY : dist[size - 1];
+        }
+
+        void scan(RTreeNode leaf, boolean excludeSelf) {
+            double qx = query.getX();
+            double qy = query.getY();
+
+            // 이 리프 MBR까지도 현재 k번째보다 멀면 볼 필요가 없다
+            Rectangle r = leaf.mbr;
+            double dx = Math.max(0, Math.max(r.getLeftTop().getX() - qx, qx - r.getRightBottom().getX()));
+            double dy = Math.max(0, Math.max(r.getLeftTop().getY() - qy, qy - r.getRightBottom().getY()));
+            if (dx * dx + dy * dy > bound()) return;
+
+            for (Point p : leaf.points) {
+                if (excludeSelf && p.getX() == qx && p.getY() == qy) continue;
+                double px = p.getX() - qx;
+                double py = p.getY() - qy;
+                offer(px * px + py * py, p);
+            }
+        }
+
+        void offer(double d, Point p) {
+            if (size == dist.length) {
+                if (d >= dist[size - 1]) return;
+                size--;
+            }
+            int i = size++;
+            while (i > 0 && dist[i - 1] > d) {
+                dist[i] = dist[i - 1];
+                points[i] = points[i - 1];
+                i--;
+            }
+            dist[i] = d;
+            points[i] = p;
+        }
+
+        List<Point> toList() {
+            return new ArrayList<>(Arrays.asList(points).subList(0, size));
+        }
+    }
+}
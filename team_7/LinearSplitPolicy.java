@@ -0,0 +1,57 @@
+package org.dfpl.dbp.rtree.team_7;
+
+import java.util.List;
+
+/**
+ * Guttman Linear split.
+ * 각 축에서 "하한이 가장 큰 엔트리"와 "상한이 가장 작은 엔트리"의 거리를 축 너비로 나눈 값이
+ * 가장 큰 쌍을 seed로 고르고, 나머지는 들어온 순서대로 배정한다. O(M).
+ */
+public class LinearSplitPolicy extends GuttmanSplitPolicy {
+
+    @Override
+    int[] pickSeeds(List<Rectangle> rects) {
+        int[] best = {0, 1};
+        double bestSeparation = -Double.MAX_VALUE;
+
+        for (int axis = 0; axis < 2; axis++) {
+            int highestLow = 0;
+            int lowestHigh = 0;
+            double minLow = Double.MAX_VALUE;
+            double maxHigh = -Double.MAX_VALUE;
+
+            for (int i = 0; i < rects.size(); i++) {
+                double lo = low(rects.get(i), axis);
+                double hi = high(rects.get(i), axis);
+                if (lo > low(rects.get(highestLow), axis)) highestLow = i;
+                if (hi < high(rects.get(lowestHigh), axis)) lowestHigh = i;
+                minLow = Math.min(minLow, lo);
+                maxHigh = Math.max(maxHigh, hi);
+            }
+            if (highestLow == lowestHigh) continue;
+
+            double width = maxHigh - minLow;
+            double separation = (low(rects.get(highestLow), axis) - high(rects.get(lowestHigh), axis));
+            separation = width > 0 ? separation / width : 0;
+
+            if (separation > bestSeparation) {
+                bestSeparation = separation;
+                best = new int[]{lowestHigh, highestLow};
+            }
+        }
+        return best;
+    }
+
+    @Override
+    int pickNext(List<Rectangle> rects, List<Integer> remaining, Rectangle mbr1, Rectangle mbr2) {
+        return 0;
+    }
+
+    private static double low(Rectangle r, int axis) {
+        return axis == 0 ? r.getLeftTop().getX() : r.getLeftTop().getY();
+    }
+
+    private static double high(Rectangle r, int axis) {
+        return axis == 0 ? r.getRightBottom().getX() : r.getRightBottom().getY();
+    }
+}
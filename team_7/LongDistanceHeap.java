@@ -0,0 +1,87 @@
+package org.dfpl.dbp.rtree.team_7;
+
+import java.util.Arrays;
+
+/**
+ * DistanceHeap의 primitive 버전. 값도 long으로 저장하므로 노드/엔트리를 정수로 가리키는
+ * 배열 기반 트리(FlatRTree 등)에서 KNN을 돌릴 때 박싱이 전혀 생기지 않는다.
+ */
+class LongDistanceHeap {
+
+    private double[] keys;
+    private long[] values;
+    private int size;
+
+    LongDistanceHeap() {
+        this(64);
+    }
+
+    LongDistanceHeap(int initialCapacity) {
+        keys = new double[Math.max(2, initialCapacity)];
+        values = new long[keys.length];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void push(double key, long value) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+
+        // sift up
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] <= key) break;
+            keys[i] = keys[parent];
+            values[i] = values[parent];
+            i = parent;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    double peekKey() {
+        return keys[0];
+    }
+
+    long peekValue() {
+        return values[0];
+    }
+
+    long pop() {
+        long top = values[0];
+        size--;
+
+        double key = keys[size];
+        long value = values[size];
+
+        // sift down
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && keys[child + 1] < keys[child]) child++;
+            if (key <= keys[child]) break;
+            keys[i] = keys[child];
+            values[i] = values[child];
+            i = child;
+        }
+        if (size > 0) {
+            keys[i] = key;
+            values[i] = value;
+        }
+        return top;
+    }
+
+    void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,408 @@
+package org.dfpl.dbp.rtree.team_7;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * 디스크에 저장된 R-tree 파일을 FileChannel.map으로 열어 그대로 검색하는 읽기 전용 R-tree.
+ *
+ * 파일 형식 (모두 little endian, 페이지 크기 고정)
+ *   page 0      : 헤더 (MAGIC, VERSION, slots, pageSize, root 페이지 번호, 포인트 수, 페이지 수)
+ *   page 1 ...  : 노드 페이지 (NodePage 레이아웃과 동일: level, count, parent, MBR, 엔트리)
+ *
+ * 열 때는 헤더만 읽고 노드 페이지는 매핑만 해 두므로, 트리 크기와 상관없이 바로 검색할 수 있다.
+ * 매핑 하나는 2GB를 넘을 수 없어서 Integer.MAX_VALUE / pageSize개 페이지씩 나눠 매핑한다.
+ * 바꿀 수 없는 인덱스이므로 RTree가 아니라 질의만 있는 ReadOnlyRTree를 구현한다.
+ */
+public class MappedRTree implements ReadOnlyRTree {
+
+    private static final int MAGIC = 0x52545237;   // "RTR7"
+    private static final int VERSION = 1;
+
+    // 헤더 필드 오프셋
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_SLOTS = 8;
+    private static final int H_PAGE_SIZE = 12;
+    private static final int H_ROOT = 16;
+    private static final int H_PAGE_COUNT = 20;
+    private static final int H_SIZE = 24;
+    private static final int HEADER_SIZE = 32;
+
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    // readPoints가 한 번에 읽는 페이지 수
+    private static final int PAGES_PER_READ = 256;
+
+    private static final int NONE = NodePage.NONE;
+
+    // KNN 힙 값 인코딩 (점이면 TAG_POINT | 페이지 번호 * slots + 칸 번호, 노드면 페이지 번호)
+    private static final long TAG_POINT = 1L << 62;
+
+    private final ByteBuffer[] chunks;
+    private final int slots;
+    private final int pageSize;
+    private final int pagesPerChunk;   // 매핑 하나에 들어가는 페이지 수 (chunk 안 오프셋이 int를 넘지 않도록)
+    private final int root;
+    private final long size;
+
+    // KNN 탐색 힙. 읽기만 하는 스레드들이 동시에 nearest를 불러도 되도록 스레드마다 하나씩 둔다.
+    private static final ThreadLocal<LongDistanceHeap> SCRATCH_HEAP = ThreadLocal.withInitial(LongDistanceHeap::new);
+
+    private MappedRTree(ByteBuffer[] chunks, int slots, int pageSize, int root, long size) {
+        this.chunks = chunks;
+        this.slots = slots;
+        this.pageSize = pageSize;
+        this.pagesPerChunk = pagesPerChunk(pageSize);
+        this.root = root;
+        this.size = size;
+    }
+
+    // ======================================================================
+    //  Open
+
+    public static MappedRTree open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = readHeader(channel, file);
+            int slots = header.getInt(H_SLOTS);
+            int pageSize = header.getInt(H_PAGE_SIZE);
+            int root = header.getInt(H_ROOT);
+            int pageCount = header.getInt(H_PAGE_COUNT);
+            long size = header.getLong(H_SIZE);
+
+            // 매핑은 채널을 닫은 뒤에도 유효하다
+            int perChunk = pagesPerChunk(pageSize);
+            ByteBuffer[] chunks = new ByteBuffer[(int) (((long) pageCount + perChunk - 1) / perChunk)];
+            for (int c = 0; c < chunks.length; c++) {
+                long start = (long) c * perChunk * pageSize;
+                long length = (long) Math.min(perChunk, pageCount - c * perChunk) * pageSize;
+                chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, start, length).order(ORDER);
+            }
+            return new MappedRTree(chunks, slots, pageSize, root, size);
+        }
+    }
+
+    /**
+     * 파일의 모든 점을 매핑하지 않고 채널로 읽어 옵니다.
+     * open으로 만든 매핑은 GC가 거둘 때까지 풀리지 않으므로, 한 번 읽고 버릴 파일(체크포인트 등)은 이쪽을 쓴다.
+     * 반환할 때는 채널도 닫혀 있어서 파일을 잡고 있는 것이 없다.
+     */
+    static List<Point> readPoints(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = readHeader(channel, file);
+            int pageSize = header.getInt(H_PAGE_SIZE);
+            int pageCount = header.getInt(H_PAGE_COUNT);
+            long size = header.getLong(H_SIZE);
+
+            List<Point> points = new ArrayList<>((int) Math.min(size, Integer.MAX_VALUE - 8));
+            int perRead = Math.min(PAGES_PER_READ, pagesPerChunk(pageSize));
+            ByteBuffer block = ByteBuffer.allocate(perRead * pageSize).order(ORDER);
+
+            // 노드 페이지를 PAGES_PER_READ개씩 읽어 리프의 점만 꺼낸다
+            for (int first = 1; first < pageCount; first += perRead) {
+                int pages = Math.min(perRead, pageCount - first);
+                long position = (long) first * pageSize;
+                block.clear().limit(pages * pageSize);
+                while (block.hasRemaining()) {
+                    if (channel.read(block, position + block.position()) < 0) {
+                        throw new IOException("truncated file: " + file);
+                    }
+                }
+                for (int i = 0; i < pages; i++) {
+                    int o = i * pageSize;
+                    if (NodePage.level(block, o) != 0) continue;
+                    for (int k = 0; k < NodePage.count(block, o); k++) {
+                        points.add(new Point(NodePage.pointX(block, o, k), NodePage.pointY(block, o, k)));
+                    }
+                }
+            }
+            return points;
+        }
+    }
+
+    // 헤더를 읽어 형식을 확인한다 (파일 길이가 헤더의 페이지 수보다 짧아도 예외)
+    private static ByteBuffer readHeader(FileChannel channel, Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ORDER);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("truncated header: " + file);
+            }
+        }
+        if (header.getInt(H_MAGIC) != MAGIC) {
+            throw new IOException("not an R-tree file: " + file);
+        }
+        if (header.getInt(H_VERSION) != VERSION) {
+            throw new IOException("unsupported version " + header.getInt(H_VERSION) + ": " + file);
+        }
+        if (header.getInt(H_PAGE_SIZE) < HEADER_SIZE || header.getInt(H_PAGE_COUNT) < 1) {
+            throw new IOException("corrupt header: " + file);
+        }
+        if (channel.size() < (long) header.getInt(H_PAGE_COUNT) * header.getInt(H_PAGE_SIZE)) {
+            throw new IOException("truncated file: " + file);
+        }
+        return header;
+    }
+
+    // chunk 하나가 Integer.MAX_VALUE 바이트를 넘지 않는 최대 페이지 수
+    private static int pagesPerChunk(int pageSize) {
+        return Integer.MAX_VALUE / pageSize;
+    }
+
+    // ======================================================================
+    //  Write (RTreeImpl의 노드 그래프를 페이지로 내려쓴다)
+
+    static void write(RTreeNode rootNode, Path file) throws IOException {
+        // 1. 노드마다 페이지 번호 부여 (BFS 순서 → 위쪽 노드가 파일 앞쪽에 모인다)
+        List<RTreeNode> nodes = new ArrayList<>();
+        Map<RTreeNode, Integer> pageOf = new IdentityHashMap<>();
+        int slots = 1;
+        long size = 0;
+
+        nodes.add(rootNode);
+        pageOf.put(rootNode, 1);
+        for (int i = 0; i < nodes.size(); i++) {
+            RTreeNode node = nodes.get(i);
+            if (node.isLeaf) {
+                slots = Math.max(slots, node.points.size());
+                size += node.points.size();
+            } else {
+                slots = Math.max(slots, node.children.size());
+                for (RTreeNode child : node.children) {
+                    pageOf.put(child, nodes.size() + 1);
+                    nodes.add(child);
+                }
+            }
+        }
+
+        int pageSize = NodePage.pageSize(slots);
+        int pageCount = nodes.size() + 1;
+
+        int rootLevel = 0;
+        for (RTreeNode n = rootNode; !n.isLeaf; n = n.children.get(0)) rootLevel++;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer page = ByteBuffer.allocate(pageSize).order(ORDER);
+
+            // 2. 헤더 페이지
+            page.putInt(H_MAGIC, MAGIC);
+            page.putInt(H_VERSION, VERSION);
+            page.putInt(H_SLOTS, slots);
+            page.putInt(H_PAGE_SIZE, pageSize);
+            page.putInt(H_ROOT, 1);
+            page.putInt(H_PAGE_COUNT, pageCount);
+            page.putLong(H_SIZE, size);
+            writePage(channel, page, 0);
+
+            // 3. 노드 페이지 (BFS 순서대로면 같은 높이끼리 모여 있으므로 level은 부모에서 1씩 줄여 나간다)
+            int[] levels = new int[pageCount];
+            levels[1] = rootLevel;
+            for (int i = 0; i < nodes.size(); i++) {
+                RTreeNode node = nodes.get(i);
+                int id = i + 1;
+
+                Arrays.fill(page.array(), (byte) 0);
+                NodePage.init(page, 0, levels[id]);
+                NodePage.setParent(page, 0, node.parent == null ? NONE : pageOf.get(node.parent));
+                if (node.mbr != null) {
+                    NodePage.includeBox(page, 0,
+                            node.mbr.getLeftTop().getX(), node.mbr.getLeftTop().getY(),
+                            node.mbr.getRightBottom().getX(), node.mbr.getRightBottom().getY());
+                }
+
+                if (node.isLeaf) {
+                    List<Point> points = node.points;
+                    for (int k = 0; k < points.size(); k++) {
+                        NodePage.setPoint(page, 0, k, points.get(k).getX(), points.get(k).getY());
+                    }
+                    NodePage.setCount(page, 0, points.size());
+                } else {
+                    List<RTreeNode> children = node.children;
+                    for (int k = 0; k < children.size(); k++) {
+                        int child = pageOf.get(children.get(k));
+                        NodePage.setChild(page, 0, k, child);
+                        levels[child] = levels[id] - 1;
+                    }
+                    NodePage.setCount(page, 0, children.size());
+                }
+                writePage(channel, page, id);
+            }
+            channel.force(true);
+        }
+    }
+
+    private static void writePage(FileChannel channel, ByteBuffer page, int id) throws IOException {
+        long position = (long) id * page.capacity();
+        page.clear();
+        while (page.hasRemaining()) {
+            channel.write(page, position + page.position());
+        }
+    }
+
+    // ======================================================================
+    //  페이지 접근
+
+    private ByteBuffer buf(int page) {
+        return chunks[page / pagesPerChunk];
+    }
+
+    private int off(int page) {
+        return (page % pagesPerChunk) * pageSize;
+    }
+
+    // ======================================================================
+    //  Search (페이지 번호 스택으로 순회하는 lazy iterator)
+
+    @Override
+    public Iterator<Point> search(Rectangle rectangle) {
+        if (size == 0) return Collections.emptyIterator();
+        return new SearchIterator(rectangle);
+    }
+
+    private class SearchIterator implements Iterator<Point> {
+
+        private final int[] pageStack = new int[NodePage.level(buf(root), off(root)) + 1];
+        private final int[] indexStack = new int[pageStack.length];
+        private int depth;
+
+        private final double qMinX, qMinY, qMaxX, qMaxY;
+
+        private boolean hasNext;
+        private double nextX, nextY;
+
+        SearchIterator(Rectangle query) {
+            qMinX = query.getLeftTop().getX();
+            qMinY = query.getLeftTop().getY();
+            qMaxX = query.getRightBottom().getX();
+            qMaxY = query.getRightBottom().getY();
+
+            depth = NodePage.intersects(buf(root), off(root), qMinX, qMinY, qMaxX, qMaxY) ? 0 : -1;
+            pageStack[0] = root;
+            indexStack[0] = 0;
+            advance();
+        }
+
+        private void advance() {
+            hasNext = false;
+            while (depth >= 0) {
+                int page = pageStack[depth];
+                ByteBuffer b = buf(page);
+                int o = off(page);
+                int n = NodePage.count(b, o);
+                int i = indexStack[depth];
+
+                if (NodePage.level(b, o) == 0) {
+                    while (i < n) {
+                        double x = NodePage.pointX(b, o, i);
+                        double y = NodePage.pointY(b, o, i);
+                        i++;
+                        if (x >= qMinX && x <= qMaxX && y >= qMinY && y <= qMaxY) {
+                            indexStack[depth] = i;
+                            nextX = x;
+                            nextY = y;
+                            hasNext = true;
+                            return;
+                        }
+                    }
+                    depth--;
+                    continue;
+                }
+
+                // 내부노드: 검색 범위와 겹치는 다음 자식으로 내려간다
+                int next = NONE;
+                while (i < n) {
+                    int c = NodePage.child(b, o, i++);
+                    if (NodePage.intersects(buf(c), off(c), qMinX, qMinY, qMaxX, qMaxY)) {
+                        next = c;
+                        break;
+                    }
+                }
+                indexStack[depth] = i;
+                if (next == NONE) {
+                    depth--;
+                    continue;
+                }
+                depth++;
+                pageStack[depth] = next;
+                indexStack[depth] = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        @Override
+        public Point next() {
+            if (!hasNext) throw new NoSuchElementException();
+            Point p = new Point(nextX, nextY);
+            advance();
+            return p;
+        }
+    }
+
+    // ======================================================================
+    //  KNN (제곱 거리 best-first)
+
+    @Override
+    public Iterator<Point> nearest(Point source, int maxCount) {
+        if (source == null || size == 0 || maxCount <= 0) {
+            return Collections.emptyIterator();
+        }
+
+        double sx = source.getX();
+        double sy = source.getY();
+
+        LongDistanceHeap heap = SCRATCH_HEAP.get();
+        heap.clear();
+        heap.push(NodePage.minDistSq(buf(root), off(root), sx, sy), root);
+
+        List<Point> result = new ArrayList<>((int) Math.min(maxCount, size));
+        while (!heap.isEmpty() && result.size() < maxCount) {
+            long top = heap.pop();
+
+            if ((top & TAG_POINT) != 0) {
+                long ref = top & ~TAG_POINT;
+                int page = (int) (ref / slots);
+                int k = (int) (ref % slots);
+                result.add(new Point(NodePage.pointX(buf(page), off(page), k), NodePage.pointY(buf(page), off(page), k)));
+                continue;
+            }
+
+            int page = (int) top;
+            ByteBuffer b = buf(page);
+            int o = off(page);
+            int n = NodePage.count(b, o);
+            if (NodePage.level(b, o) == 0) {
+                for (int k = 0; k < n; k++) {
+                    double dx = NodePage.pointX(b, o, k) - sx;
+                    double dy = NodePage.pointY(b, o, k) - sy;
+                    heap.push(dx * dx + dy * dy, TAG_POINT | ((long) page * slots + k));
+                }
+            } else {
+                for (int k = 0; k < n; k++) {
+                    int c = NodePage.child(b, o, k);
+                    heap.push(NodePage.minDistSq(buf(c), off(c), sx, sy), c);
+                }
+            }
+        }
+        heap.clear();
+        return result.iterator();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+}
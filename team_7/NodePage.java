@@ -0,0 +1,139 @@
+package org.dfpl.dbp.rtree.team_7;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 고정 크기 R-tree 노드 페이지의 바이트 레이아웃 (OffHeapRTree, MappedRTree 공용).
+ * 페이지는 ByteBuffer 안의 off 위치에서 시작하며, 모든 접근은 절대 위치 get/put으로 한다.
+ *
+ * <pre>
+ * [0]   int    level   (리프 = 0)
+ * [4]   int    count   (엔트리 수)
+ * [8]   int    parent  (부모 페이지 번호, 루트는 -1)
+ * [12]  int    (예약)
+ * [16]  double minX, [24] minY, [32] maxX, [40] maxY   (노드 MBR)
+ * [48]  엔트리 slots개 (칸당 16byte)
+ *         리프:     double x, double y
+ *         내부 노드: int child (나머지 12byte는 비움)
+ * </pre>
+ */
+final class NodePage {
+
+    static final int NONE = -1;
+
+    static final int LEVEL = 0;
+    static final int COUNT = 4;
+    static final int PARENT = 8;
+    static final int MIN_X = 16;
+    static final int MIN_Y = 24;
+    static final int MAX_X = 32;
+    static final int MAX_Y = 40;
+    static final int ENTRIES = 48;
+    static final int ENTRY_SIZE = 16;
+
+    private NodePage() {
+    }
+
+    static int pageSize(int slots) {
+        return ENTRIES + slots * ENTRY_SIZE;
+    }
+
+    // ---- 헤더 ----
+
+    static int level(ByteBuffer b, int off) {
+        return b.getInt(off + LEVEL);
+    }
+
+    static int count(ByteBuffer b, int off) {
+        return b.getInt(off + COUNT);
+    }
+
+    static int parent(ByteBuffer b, int off) {
+        return b.getInt(off + PARENT);
+    }
+
+    static void init(ByteBuffer b, int off, int level) {
+        b.putInt(off + LEVEL, level);
+        b.putInt(off + COUNT, 0);
+        b.putInt(off + PARENT, NONE);
+        resetBox(b, off);
+    }
+
+    static void setCount(ByteBuffer b, int off, int count) {
+        b.putInt(off + COUNT, count);
+    }
+
+    static void setParent(ByteBuffer b, int off, int parent) {
+        b.putInt(off + PARENT, parent);
+    }
+
+    // ---- MBR ----
+
+    static double minX(ByteBuffer b, int off) {
+        return b.getDouble(off + MIN_X);
+    }
+
+    static double minY(ByteBuffer b, int off) {
+        return b.getDouble(off + MIN_Y);
+    }
+
+    static double maxX(ByteBuffer b, int off) {
+        return b.getDouble(off + MAX_X);
+    }
+
+    static double maxY(ByteBuffer b, int off) {
+        return b.getDouble(off + MAX_Y);
+    }
+
+    static void resetBox(ByteBuffer b, int off) {
+        b.putDouble(off + MIN_X, Double.POSITIVE_INFINITY);
+        b.putDouble(off + MIN_Y, Double.POSITIVE_INFINITY);
+        b.putDouble(off + MAX_X, Double.NEGATIVE_INFINITY);
+        b.putDouble(off + MAX_Y, Double.NEGATIVE_INFINITY);
+    }
+
+    static void includeBox(ByteBuffer b, int off, double minX, double minY, double maxX, double maxY) {
+        if (minX < minX(b, off)) b.putDouble(off + MIN_X, minX);
+        if (minY < minY(b, off)) b.putDouble(off + MIN_Y, minY);
+        if (maxX > maxX(b, off)) b.putDouble(off + MAX_X, maxX);
+        if (maxY > maxY(b, off)) b.putDouble(off + MAX_Y, maxY);
+    }
+
+    static boolean intersects(ByteBuffer b, int off, double qMinX, double qMinY, double qMaxX, double qMaxY) {
+        return !(qMaxX < minX(b, off) || qMinX > maxX(b, off) || qMaxY < minY(b, off) || qMinY > maxY(b, off));
+    }
+
+    static boolean contains(ByteBuffer b, int off, double x, double y) {
+        return x >= minX(b, off) && x <= maxX(b, off) && y >= minY(b, off) && y <= maxY(b, off);
+    }
+
+    // 점에서 MBR까지의 최소 거리의 제곱
+    static double minDistSq(ByteBuffer b, int off, double px, double py) {
+        double dx = Math.max(0, Math.max(minX(b, off) - px, px - maxX(b, off)));
+        double dy = Math.max(0, Math.max(minY(b, off) - py, py - maxY(b, off)));
+        return dx * dx + dy * dy;
+    }
+
+    // ---- 엔트리 ----
+
+    static double pointX(ByteBuffer b, int off, int k) {
+        return b.getDouble(off + ENTRIES + k * ENTRY_SIZE);
+    }
+
+    static double pointY(ByteBuffer b, int off, int k) {
+        return b.getDouble(off + ENTRIES + k * ENTRY_SIZE + 8);
+    }
+
+    static void setPoint(ByteBuffer b, int off, int k, double x, double y) {
+        b.putDouble(off + ENTRIES + k * ENTRY_SIZE, x);
+        b.putDouble(off + ENTRIES + k * ENTRY_SIZE + 8, y);
+    }
+
+    static int child(ByteBuffer b, int off, int k) {
+        return b.getInt(off + ENTRIES + k * ENTRY_SIZE);
+    }
+
+    static void setChild(ByteBuffer b, int off, int k, int child) {
+        b.putInt(off + ENTRIES + k * ENTRY_SIZE, child);
+    }
+}
@@ -0,0 +1,611 @@
+package org.dfpl.dbp.rtree.team_7;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.*;
+
+/**
+ * 노드를 힙 밖(direct ByteBuffer)의 고정 크기 페이지에 저장하는 R-tree.
+ *
+ * 페이지 레이아웃은 NodePage를 따른다. 페이지는 PAGES_PER_CHUNK개씩 묶은 direct buffer(chunk)에
+ * 나뉘어 있고, 페이지 번호 → (chunk, offset)으로 찾아간다.
+ * 힙에는 chunk 핸들 목록과 빈 페이지 번호 목록만 남으므로 트리가 커져도 GC가 훑을 객체가 늘지 않는다.
+ *
+ * 알고리즘은 RTreeImpl과 같다: 면적 확장량이 최소인 리프 선택, overflow 시 SplitPolicy로 분할,
+ * 삭제 시 Condense Tree (모자란 노드를 떼어내고 엔트리를 원래 높이에 재삽입).
+ */
+public class OffHeapRTree implements RTree {
+
+    private static final int NONE = NodePage.NONE;
+
+    // chunk 하나에 들어가는 페이지 수
+    private static final int PAGES_PER_CHUNK = 4096;
+
+    // KNN 힙 값 인코딩 (상위 bit: 점인지 여부, 나머지: 페이지 번호 * slots + 칸 번호 또는 페이지 번호)
+    private static final long TAG_POINT = 1L << 62;
+
+    private final int maxEntries;
+    private final int minEntries;
+    private final int slots;
+    private final int pageSize;
+    private final SplitPolicy splitPolicy;
+
+    // 페이지 저장소 (힙에는 핸들만)
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private int pageTop;
+    private int[] freePages = new int[16];
+    private int freeSize;
+
+    private int root;
+    private int size;
+    private int modCount;
+
+    // KNN 탐색 힙. 읽기만 하는 스레드들이 동시에 nearest를 불러도 되도록 스레드마다 하나씩 둔다.
+    private static final ThreadLocal<LongDistanceHeap> SCRATCH_HEAP = ThreadLocal.withInitial(LongDistanceHeap::new);
+
+    public OffHeapRTree() {
+        this(RTreeNode.MAX);
+    }
+
+    public OffHeapRTree(int maxEntries) {
+        this(maxEntries, maxEntries / 2);
+    }
+
+    public OffHeapRTree(int maxEntries, int minEntries) {
+        this(maxEntries, minEntries, new LinearSplitPolicy());
+    }
+
+    public OffHeapRTree(int maxEntries, int minEntries, SplitPolicy splitPolicy) {
+        if (maxEntries < 2) {
+            throw new IllegalArgumentException("maxEntries must be at least 2: " + maxEntries);
+        }
+        if (minEntries < 1 || minEntries > maxEntries / 2) {
+            throw new IllegalArgumentException("minEntries must be in [1, maxEntries / 2]: " + minEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.minEntries = minEntries;
+        this.slots = maxEntries + 1;
+        this.pageSize = NodePage.pageSize(slots);
+        this.splitPolicy = splitPolicy;
+
+        root = allocPage(0);
+    }
+
+    // ======================================================================
+    //  페이지 관리
+
+    private int allocPage(int level) {
+        int page;
+        if (freeSize > 0) {
+            page = freePages[--freeSize];
+        } else {
+            page = pageTop++;
+            if (page / PAGES_PER_CHUNK == chunks.size()) {
+                chunks.add(ByteBuffer.allocateDirect(PAGES_PER_CHUNK * pageSize).order(ByteOrder.nativeOrder()));
+            }
+        }
+        NodePage.init(buf(page), off(page), level);
+        return page;
+    }
+
+    private void freePage(int page) {
+        if (freeSize == freePages.length) freePages = Arrays.copyOf(freePages, freeSize * 2);
+        freePages[freeSize++] = page;
+    }
+
+    private ByteBuffer buf(int page) {
+        return chunks.get(page / PAGES_PER_CHUNK);
+    }
+
+    private int off(int page) {
+        return (page % PAGES_PER_CHUNK) * pageSize;
+    }
+
+    private int level(int page) {
+        return NodePage.level(buf(page), off(page));
+    }
+
+    private int count(int page) {
+        return NodePage.count(buf(page), off(page));
+    }
+
+    private void setCount(int page, int count) {
+        NodePage.setCount(buf(page), off(page), count);
+    }
+
+    private int parent(int page) {
+        return NodePage.parent(buf(page), off(page));
+    }
+
+    private double px(int page, int k) {
+        return NodePage.pointX(buf(page), off(page), k);
+    }
+
+    private double py(int page, int k) {
+        return NodePage.pointY(buf(page), off(page), k);
+    }
+
+    private int child(int page, int k) {
+        return NodePage.child(buf(page), off(page), k);
+    }
+
+    private void appendPoint(int leaf, double x, double y) {
+        int k = count(leaf);
+        NodePage.setPoint(buf(leaf), off(leaf), k, x, y);
+        setCount(leaf, k + 1);
+    }
+
+    // 내부 노드 끝에 자식을 붙이고 자식의 parent를 갱신 (MBR은 호출한 쪽에서 처리)
+    private void appendChild(int node, int child) {
+        int k = count(node);
+        NodePage.setChild(buf(node), off(node), k, child);
+        setCount(node, k + 1);
+        NodePage.setParent(buf(child), off(child), node);
+    }
+
+    private void includeBox(int page, double minX, double minY, double maxX, double maxY) {
+        NodePage.includeBox(buf(page), off(page), minX, minY, maxX, maxY);
+    }
+
+    private void includeChildBox(int page, int child) {
+        ByteBuffer cb = buf(child);
+        int co = off(child);
+        includeBox(page, NodePage.minX(cb, co), NodePage.minY(cb, co), NodePage.maxX(cb, co), NodePage.maxY(cb, co));
+    }
+
+    private void recomputeBox(int page) {
+        NodePage.resetBox(buf(page), off(page));
+        int n = count(page);
+        if (level(page) == 0) {
+            for (int k = 0; k < n; k++) {
+                double x = px(page, k);
+                double y = py(page, k);
+                includeBox(page, x, y, x, y);
+            }
+        } else {
+            for (int k = 0; k < n; k++) {
+                includeChildBox(page, child(page, k));
+            }
+        }
+    }
+
+    private static double area(double minX, double minY, double maxX, double maxY) {
+        return (maxX - minX) * (maxY - minY);
+    }
+
+    // ======================================================================
+    //  Insert
+
+    @Override
+    public void add(Point point) {
+        if (point == null) return;
+
+        double x = point.getX();
+        double y = point.getY();
+
+        // 같은 x, y 값을 갖는 Point가 이미 있으면 무시 (트리 전체 기준)
+        if (findLeaf(x, y) != NONE) return;
+
+        insertPoint(x, y);
+        size++;
+        modCount++;
+    }
+
+    private void insertPoint(double x, double y) {
+        // 1. 삽입할 leaf 선택
+        int leaf = chooseNode(x, y, x, y, 0);
+
+        // 2. 리프 페이지 끝에 좌표 추가
+        appendPoint(leaf, x, y);
+
+        // 3. 루트까지 MBR 확장
+        for (int p = leaf; p != NONE; p = parent(p)) {
+            includeBox(p, x, y, x, y);
+        }
+
+        // 4. 용량 초과 시 분할
+        if (count(leaf) > maxEntries) {
+            split(leaf);
+        }
+    }
+
+    // 루트에서부터 내려가며 주어진 box를 넣을 targetLevel 높이의 노드를 고른다 (면적 확장량 최소, 동률이면 면적 최소)
+    private int chooseNode(double minX, double minY, double maxX, double maxY, int targetLevel) {
+        int page = root;
+
+        while (level(page) > targetLevel && count(page) > 0) {
+            int best = NONE;
+            double bestExpand = Double.MAX_VALUE;
+            double bestArea = Double.MAX_VALUE;
+
+            for (int k = 0; k < count(page); k++) {
+                int c = child(page, k);
+                ByteBuffer cb = buf(c);
+                int co = off(c);
+                double cMinX = NodePage.minX(cb, co);
+                double cMinY = NodePage.minY(cb, co);
+                double cMaxX = NodePage.maxX(cb, co);
+                double cMaxY = NodePage.maxY(cb, co);
+
+                double a = area(cMinX, cMinY, cMaxX, cMaxY);
+                double expand = area(Math.min(cMinX, minX), Math.min(cMinY, minY),
+                        Math.max(cMaxX, maxX), Math.max(cMaxY, maxY)) - a;
+                if (expand < bestExpand || (expand == bestExpand && a < bestArea)) {
+                    best = c;
+                    bestExpand = expand;
+                    bestArea = a;
+                }
+            }
+            page = best;
+        }
+        return page;
+    }
+
+    // ======================================================================
+    //  Split (분할 방식은 splitPolicy가 결정, 엔트리는 페이지 안의 칸 번호로 넘긴다)
+
+    private void split(int page) {
+        int level = level(page);
+        int n = count(page);
+
+        List<Integer> entries = new ArrayList<>(n);
+        for (int k = 0; k < n; k++) entries.add(k);
+        List<List<Integer>> groups = splitPolicy.split(entries, k -> entryRect(page, k), minEntries);
+
+        int sibling = allocPage(level);
+        if (level == 0) {
+            double[] xs = new double[n];
+            double[] ys = new double[n];
+            for (int k = 0; k < n; k++) {
+                xs[k] = px(page, k);
+                ys[k] = py(page, k);
+            }
+            setCount(page, 0);
+            for (int k : groups.get(0)) appendPoint(page, xs[k], ys[k]);
+            for (int k : groups.get(1)) appendPoint(sibling, xs[k], ys[k]);
+        } else {
+            int[] kids = new int[n];
+            for (int k = 0; k < n; k++) kids[k] = child(page, k);
+            setCount(page, 0);
+            for (int k : groups.get(0)) appendChild(page, kids[k]);
+            for (int k : groups.get(1)) appendChild(sibling, kids[k]);
+        }
+        recomputeBox(page);
+        recomputeBox(sibling);
+
+        int parent = parent(page);
+
+        // 루트 분할 → 새 루트
+        if (parent == NONE) {
+            int newRoot = allocPage(level + 1);
+            appendChild(newRoot, page);
+            appendChild(newRoot, sibling);
+            recomputeBox(newRoot);
+            root = newRoot;
+            return;
+        }
+
+        appendChild(parent, sibling);
+        if (count(parent) > maxEntries) {
+            split(parent);
+        }
+    }
+
+    private Rectangle entryRect(int page, int k) {
+        if (level(page) == 0) {
+            Point p = new Point(px(page, k), py(page, k));
+            return new Rectangle(p, p);
+        }
+        int c = child(page, k);
+        ByteBuffer cb = buf(c);
+        int co = off(c);
+        return new Rectangle(new Point(NodePage.minX(cb, co), NodePage.minY(cb, co)),
+                new Point(NodePage.maxX(cb, co), NodePage.maxY(cb, co)));
+    }
+
+    // ======================================================================
+    //  Search (페이지 번호 스택으로 순회하며 결과를 하나씩 만들어내는 lazy iterator)
+
+    @Override
+    public Iterator<Point> search(Rectangle rectangle) {
+        if (size == 0) return Collections.emptyIterator();
+        return new SearchIterator(rectangle);
+    }
+
+    private class SearchIterator implements Iterator<Point> {
+
+        private final int[] pageStack = new int[level(root) + 1];
+        private final int[] indexStack = new int[level(root) + 1];
+        private int depth;
+
+        private final double qMinX, qMinY, qMaxX, qMaxY;
+        private final int expectedModCount = modCount;
+
+        private boolean hasNext;
+        private double nextX, nextY;
+
+        SearchIterator(Rectangle query) {
+            qMinX = query.getLeftTop().getX();
+            qMinY = query.getLeftTop().getY();
+            qMaxX = query.getRightBottom().getX();
+            qMaxY = query.getRightBottom().getY();
+
+            depth = NodePage.intersects(buf(root), off(root), qMinX, qMinY, qMaxX, qMaxY) ? 0 : -1;
+            pageStack[0] = root;
+            indexStack[0] = 0;
+            advance();
+        }
+
+        private void advance() {
+            hasNext = false;
+            while (depth >= 0) {
+                int page = pageStack[depth];
+                ByteBuffer b = buf(page);
+                int o = off(page);
+                int n = NodePage.count(b, o);
+                int i = indexStack[depth];
+
+                if (NodePage.level(b, o) == 0) {
+                    while (i < n) {
+                        double x = NodePage.pointX(b, o, i);
+                        double y = NodePage.pointY(b, o, i);
+                        i++;
+                        if (x >= qMinX && x <= qMaxX && y >= qMinY && y <= qMaxY) {
+                            indexStack[depth] = i;
+                            nextX = x;
+                            nextY = y;
+                            hasNext = true;
+                            return;
+                        }
+                    }
+                    depth--;
+                    continue;
+                }
+
+                // 내부노드: 검색 범위와 겹치는 다음 자식으로 내려간다
+                int next = NONE;
+                while (i < n) {
+                    int c = NodePage.child(b, o, i++);
+                    if (NodePage.intersects(buf(c), off(c), qMinX, qMinY, qMaxX, qMaxY)) {
+                        next = c;
+                        break;
+                    }
+                }
+                indexStack[depth] = i;
+                if (next == NONE) {
+                    depth--;
+                    continue;
+                }
+                depth++;
+                pageStack[depth] = next;
+                indexStack[depth] = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            checkForComodification();
+            return hasNext;
+        }
+
+        @Override
+        public Point next() {
+            checkForComodification();
+            if (!hasNext) throw new NoSuchElementException();
+            Point p = new Point(nextX, nextY);
+            advance();
+            return p;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    // ======================================================================
+    //  KNN (제곱 거리 best-first)
+
+    @Override
+    public Iterator<Point> nearest(Point source, int maxCount) {
+        if (source == null || size == 0 || maxCount <= 0) {
+            return Collections.emptyIterator();
+        }
+
+        double sx = source.getX();
+        double sy = source.getY();
+
+        LongDistanceHeap heap = SCRATCH_HEAP.get();
+        heap.clear();
+        heap.push(NodePage.minDistSq(buf(root), off(root), sx, sy), root);
+
+        List<Point> result = new ArrayList<>(Math.min(maxCount, size));
+        while (!heap.isEmpty() && result.size() < maxCount) {
+            long top = heap.pop();
+
+            if ((top & TAG_POINT) != 0) {
+                long ref = top & ~TAG_POINT;
+                int page = (int) (ref / slots);
+                int k = (int) (ref % slots);
+                result.add(new Point(px(page, k), py(page, k)));
+                continue;
+            }
+
+            int page = (int) top;
+            ByteBuffer b = buf(page);
+            int o = off(page);
+            int n = NodePage.count(b, o);
+            if (NodePage.level(b, o) == 0) {
+                for (int k = 0; k < n; k++) {
+                    double dx = NodePage.pointX(b, o, k) - sx;
+                    double dy = NodePage.pointY(b, o, k) - sy;
+                    heap.push(dx * dx + dy * dy, TAG_POINT | ((long) page * slots + k));
+                }
+            } else {
+                for (int k = 0; k < n; k++) {
+                    int c = NodePage.child(b, o, k);
+                    heap.push(NodePage.minDistSq(buf(c), off(c), sx, sy), c);
+                }
+            }
+        }
+        heap.clear();
+        return result.iterator();
+    }
+
+    // ======================================================================
+    //  Delete (Condense Tree)
+
+    @Override
+    public void delete(Point point) {
+        if (point == null || size == 0) return;
+
+        double x = point.getX();
+        double y = point.getY();
+
+        int leaf = findLeaf(x, y);
+        if (leaf == NONE) return;
+
+        // 지울 칸을 마지막 칸으로 덮어쓴다
+        int last = count(leaf) - 1;
+        for (int k = 0; k <= last; k++) {
+            if (px(leaf, k) == x && py(leaf, k) == y) {
+                NodePage.setPoint(buf(leaf), off(leaf), k, px(leaf, last), py(leaf, last));
+                break;
+            }
+        }
+        setCount(leaf, last);
+        size--;
+        modCount++;
+
+        condenseTree(leaf);
+    }
+
+    private int findLeaf(double x, double y) {
+        if (!NodePage.contains(buf(root), off(root), x, y)) return NONE;
+        return findLeaf(root, x, y);
+    }
+
+    private int findLeaf(int page, double x, double y) {
+        int n = count(page);
+        if (level(page) == 0) {
+            for (int k = 0; k < n; k++) {
+                if (px(page, k) == x && py(page, k) == y) return page;
+            }
+            return NONE;
+        }
+
+        for (int k = 0; k < n; k++) {
+            int c = child(page, k);
+            if (NodePage.contains(buf(c), off(c), x, y)) {
+                int found = findLeaf(c, x, y);
+                if (found != NONE) return found;
+            }
+        }
+        return NONE;
+    }
+
+    private void condenseTree(int leaf) {
+        List<Integer> orphans = new ArrayList<>();
+
+        int page = leaf;
+        while (page != root) {
+            int parent = parent(page);
+            if (count(page) < minEntries) {
+                removeChild(parent, page);
+                orphans.add(page);
+            } else {
+                recomputeBox(page);
+            }
+            page = parent;
+        }
+        recomputeBox(root);
+
+        // 루트 내부 노드가 비었으면 빈 리프로 되돌린다
+        if (level(root) > 0 && count(root) == 0) {
+            freePage(root);
+            root = allocPage(0);
+        }
+
+        // 떼어낸 노드의 엔트리 재삽입 (리프는 점, 내부 노드는 자식 서브트리를 같은 높이에)
+        for (int orphan : orphans) {
+            int n = count(orphan);
+            if (level(orphan) == 0) {
+                for (int k = 0; k < n; k++) {
+                    insertPoint(px(orphan, k), py(orphan, k));
+                }
+            } else {
+                for (int k = 0; k < n; k++) {
+                    insertSubtree(child(orphan, k));
+                }
+            }
+            freePage(orphan);
+        }
+
+        // 자식이 하나뿐인 루트는 내린다
+        while (level(root) > 0 && count(root) == 1) {
+            int child = child(root, 0);
+            freePage(root);
+            root = child;
+            NodePage.setParent(buf(root), off(root), NONE);
+        }
+    }
+
+    private void removeChild(int parent, int child) {
+        int last = count(parent) - 1;
+        for (int k = 0; k <= last; k++) {
+            if (child(parent, k) == child) {
+                NodePage.setChild(buf(parent), off(parent), k, child(parent, last));
+                break;
+            }
+        }
+        setCount(parent, last);
+    }
+
+    // 서브트리를 같은 높이를 유지하도록 다시 매단다
+    private void insertSubtree(int page) {
+        int level = level(page);
+
+        // 트리가 그만큼 높지 않으면 점 단위로 풀어서 넣는다
+        if (level + 1 > level(root)) {
+            reinsertPointsOf(page);
+            return;
+        }
+
+        ByteBuffer b = buf(page);
+        int o = off(page);
+        double minX = NodePage.minX(b, o);
+        double minY = NodePage.minY(b, o);
+        double maxX = NodePage.maxX(b, o);
+        double maxY = NodePage.maxY(b, o);
+
+        int parent = chooseNode(minX, minY, maxX, maxY, level + 1);
+        appendChild(parent, page);
+        for (int p = parent; p != NONE; p = parent(p)) {
+            includeBox(p, minX, minY, maxX, maxY);
+        }
+
+        if (count(parent) > maxEntries) {
+            split(parent);
+        }
+    }
+
+    private void reinsertPointsOf(int page) {
+        int n = count(page);
+        if (level(page) == 0) {
+            for (int k = 0; k < n; k++) {
+                insertPoint(px(page, k), py(page, k));
+            }
+        } else {
+            for (int k = 0; k < n; k++) {
+                reinsertPointsOf(child(page, k));
+            }
+        }
+        freePage(page);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,152 @@
+package org.dfpl.dbp.rtree.team_7;
+
+import java.util.Arrays;
+
+/**
+ * 좌표 (x, y) → 그 점이 들어있는 리프 노드의 해시 맵 (open addressing, linear probing).
+ * 키는 double 비트를 long[] 두 개에 그대로 저장하므로 Point나 박싱된 키를 만들지 않는다.
+ * 빈 슬롯은 leaves[i] == null로 표시하고, 삭제는 tombstone 없이 뒤 엔트리를 당겨 채운다 (backward shift).
+ * 좌표 비교는 트리와 같이 == 기준이다 (0.0과 -0.0은 같은 키).
+ */
+final class PointLeafIndex {
+
+    // 채움 비율이 이 값을 넘으면 두 배로 늘린다
+    private static final double MAX_LOAD = 0.5;
+
+    private long[] keysX;
+    private long[] keysY;
+    private RTreeNode[] leaves;
+    private int mask;
+    private int size;
+
+    PointLeafIndex() {
+        this(64);
+    }
+
+    PointLeafIndex(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    int size() {
+        return size;
+    }
+
+    RTreeNode get(double x, double y) {
+        long kx = bits(x), ky = bits(y);
+        for (int i = slot(kx, ky); leaves[i] != null; i = (i + 1) & mask) {
+            if (keysX[i] == kx && keysY[i] == ky) return leaves[i];
+        }
+        return null;
+    }
+
+    // 새 키면 추가하고, 있던 키면 리프만 바꾼다
+    void put(double x, double y, RTreeNode leaf) {
+        long kx = bits(x), ky = bits(y);
+        int i = slot(kx, ky);
+        for (; leaves[i] != null; i = (i + 1) & mask) {
+            if (keysX[i] == kx && keysY[i] == ky) {
+                leaves[i] = leaf;
+                return;
+            }
+        }
+        keysX[i] = kx;
+        keysY[i] = ky;
+        leaves[i] = leaf;
+        if (++size > leaves.length * MAX_LOAD) {
+            rehash(leaves.length * 2);
+        }
+    }
+
+    // 리프의 모든 점을 이 리프로 다시 가리키게 한다 (분할로 점이 새 리프로 옮겨 갔을 때)
+    void putAll(RTreeNode leaf) {
+        for (Point p : leaf.points) {
+            put(p.getX(), p.getY(), leaf);
+        }
+    }
+
+    void remove(double x, double y) {
+        long kx = bits(x), ky = bits(y);
+        int i = slot(kx, ky);
+        while (true) {
+            if (leaves[i] == null) return;
+            if (keysX[i] == kx && keysY[i] == ky) break;
+            i = (i + 1) & mask;
+        }
+        size--;
+
+        // 빈 칸 뒤의 엔트리 중 원래 자리(home)에서 빈 칸을 지나와야 하는 것들을 앞으로 당긴다
+        int hole = i;
+        for (int j = (hole + 1) & mask; leaves[j] != null; j = (j + 1) & mask) {
+            int home = slot(keysX[j], keysY[j]);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keysX[hole] = keysX[j];
+                keysY[hole] = keysY[j];
+                leaves[hole] = leaves[j];
+                hole = j;
+            }
+        }
+        leaves[hole] = null;
+    }
+
+    void clear() {
+        Arrays.fill(leaves, null);
+        size = 0;
+    }
+
+    // 서브트리의 모든 점을 다시 등록 (bulk load 등으로 트리를 통째로 만든 뒤)
+    void rebuild(RTreeNode root) {
+        clear();
+        addSubtree(root);
+    }
+
+    private void addSubtree(RTreeNode node) {
+        if (node == null) return;
+        if (node.isLeaf) {
+            putAll(node);
+            return;
+        }
+        for (RTreeNode child : node.children) {
+            addSubtree(child);
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldX = keysX;
+        long[] oldY = keysY;
+        RTreeNode[] oldLeaves = leaves;
+        allocate(newCapacity);
+        for (int i = 0; i < oldLeaves.length; i++) {
+            if (oldLeaves[i] == null) continue;
+            int j = slot(oldX[i], oldY[i]);
+            while (leaves[j] != null) j = (j + 1) & mask;
+            keysX[j] = oldX[i];
+            keysY[j] = oldY[i];
+            leaves[j] = oldLeaves[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keysX = new long[capacity];
+        keysY = new long[capacity];
+        leaves = new RTreeNode[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int needed = (int) Math.min(1 << 30, Math.ceil(Math.max(expectedSize, 8) / MAX_LOAD));
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    // 0.0과 -0.0은 == 로 같으므로 같은 키가 되도록 맞춘다
+    private static long bits(double v) {
+        return Double.doubleToLongBits(v == 0.0 ? 0.0 : v);
+    }
+
+    private int slot(long kx, long ky) {
+        long h = kx * 0x9E3779B97F4A7C15L + ky;
+        h ^= h >>> 32;
+        h *= 0xC2B2AE3D27D4EB4FL;
+        h ^= h >>> 29;
+        return (int) h & mask;
+    }
+}
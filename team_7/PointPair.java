@@ -0,0 +1,46 @@
+package org.dfpl.dbp.rtree.team_7;
+
+import java.util.Objects;
+
+/**
+ * 공간 조인 결과 한 쌍. first는 왼쪽 트리, second는 오른쪽 트리의 Point.
+ */
+public class PointPair {
+    private final Point first;
+    private final Point second;
+
+    public PointPair(Point first, Point second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    public Point getFirst() {
+        return first;
+    }
+
+    public Point getSecond() {
+        return second;
+    }
+
+    public double distance() {
+        return first.distance(second);
+    }
+
+    @Override
+    public String toString() {
+        return "PointPair [first=" + first + ", second=" + second + "]";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PointPair pair = (PointPair) o;
+        return first.equals(pair.first) && second.equals(pair.second);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(first, second);
+    }
+}
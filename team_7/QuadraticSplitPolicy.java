@@ -0,0 +1,46 @@
+package org.dfpl.dbp.rtree.team_7;
+
+import java.util.List;
+
+/**
+ * Guttman Quadratic split.
+ * 함께 묶었을 때 낭비되는 면적이 가장 큰 쌍을 seed로 고르고,
+ * 두 그룹 사이의 선호도 차이가 가장 큰 엔트리부터 배정한다. O(M^2).
+ */
+public class QuadraticSplitPolicy extends GuttmanSplitPolicy {
+
+    @Override
+    int[] pickSeeds(List<Rectangle> rects) {
+        int[] best = {0, 1};
+        double maxWaste = -Double.MAX_VALUE;
+
+        for (int i = 0; i < rects.size(); i++) {
+            for (int j = i + 1; j < rects.size(); j++) {
+                Rectangle a = rects.get(i);
+                Rectangle b = rects.get(j);
+                double waste = a.union(b).area() - a.area() - b.area();
+                if (waste > maxWaste) {
+                    maxWaste = waste;
+                    best = new int[]{i, j};
+                }
+            }
+        }
+        return best;
+    }
+
+    @Override
+    int pickNext(List<Rectangle> rects, List<Integer> remaining, Rectangle mbr1, Rectangle mbr2) {
+        int best = 0;
+        double maxDiff = -1;
+
+        for (int k = 0; k < remaining.size(); k++) {
+            Rectangle r = rects.get(remaining.get(k));
+            double diff = Math.abs(mbr1.enlargement(r) - mbr2.enlargement(r));
+            if (diff > maxDiff) {
+                maxDiff = diff;
+                best = k;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,125 @@
+package org.dfpl.dbp.rtree.team_7;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * R*-tree split (Beckmann et al.).
+ * 각 축마다 하한/상한 정렬의 모든 분배에 대해 margin 합을 구해 축을 고르고,
+ * 그 축에서 두 그룹의 overlap이 최소(동률이면 면적 합 최소)인 분배를 선택한다. O(M log M).
+ */
+public class RStarSplitPolicy implements SplitPolicy {
+
+    @Override
+    public <T> List<List<T>> split(List<T> entries, Function<T, Rectangle> rectOf, int minEntries) {
+        int n = entries.size();
+
+        // 1. 축 선택: 각 축의 (하한 정렬, 상한 정렬) 모든 분배에 대한 margin 합이 작은 축
+        int bestAxis = 0;
+        double bestMarginSum = Double.MAX_VALUE;
+        for (int axis = 0; axis < 2; axis++) {
+            double marginSum = 0;
+            for (List<T> sorted : axisSorts(entries, rectOf, axis)) {
+                double[][] prefix = prefixBounds(sorted, rectOf);
+                double[][] suffix = suffixBounds(sorted, rectOf);
+                for (int k = minEntries; k <= n - minEntries; k++) {
+                    marginSum += margin(prefix[k - 1]) + margin(suffix[k]);
+                }
+            }
+            if (marginSum < bestMarginSum) {
+                bestMarginSum = marginSum;
+                bestAxis = axis;
+            }
+        }
+
+        // 2. 분배 선택: 선택된 축에서 두 그룹의 overlap이 최소, 동률이면 면적 합이 최소
+        List<T> bestSorted = null;
+        int bestK = minEntries;
+        double bestOverlap = Double.MAX_VALUE;
+        double bestArea = Double.MAX_VALUE;
+        for (List<T> sorted : axisSorts(entries, rectOf, bestAxis)) {
+            double[][] prefix = prefixBounds(sorted, rectOf);
+            double[][] suffix = suffixBounds(sorted, rectOf);
+            for (int k = minEntries; k <= n - minEntries; k++) {
+                double overlap = boundsOverlap(prefix[k - 1], suffix[k]);
+                double area = boundsArea(prefix[k - 1]) + boundsArea(suffix[k]);
+                if (overlap < bestOverlap || (overlap == bestOverlap && area < bestArea)) {
+                    bestOverlap = overlap;
+                    bestArea = area;
+                    bestSorted = sorted;
+                    bestK = k;
+                }
+            }
+        }
+
+        List<List<T>> groups = new ArrayList<>();
+        groups.add(new ArrayList<>(bestSorted.subList(0, bestK)));
+        groups.add(new ArrayList<>(bestSorted.subList(bestK, n)));
+        return groups;
+    }
+
+    // axis(0 = x, 1 = y) 기준으로 하한 우선 정렬, 상한 우선 정렬 두 가지를 만든다
+    private static <T> List<List<T>> axisSorts(List<T> entries, Function<T, Rectangle> rectOf, int axis) {
+        ToDoubleFunction<T> lo = axis == 0
+                ? e -> rectOf.apply(e).getLeftTop().getX()
+                : e -> rectOf.apply(e).getLeftTop().getY();
+        ToDoubleFunction<T> hi = axis == 0
+                ? e -> rectOf.apply(e).getRightBottom().getX()
+                : e -> rectOf.apply(e).getRightBottom().getY();
+
+        List<T> byLower = new ArrayList<>(entries);
+        byLower.sort(Comparator.comparingDouble(lo).thenComparingDouble(hi));
+        List<T> byUpper = new ArrayList<>(entries);
+        byUpper.sort(Comparator.comparingDouble(hi).thenComparingDouble(lo));
+        return List.of(byLower, byUpper);
+    }
+
+    // prefix[i] = sorted[0..i]의 경계 {minX, minY, maxX, maxY}
+    private static <T> double[][] prefixBounds(List<T> sorted, Function<T, Rectangle> rectOf) {
+        double[][] out = new double[sorted.size()][];
+        double[] acc = null;
+        for (int i = 0; i < sorted.size(); i++) {
+            acc = includeBounds(acc, rectOf.apply(sorted.get(i)));
+            out[i] = acc;
+        }
+        return out;
+    }
+
+    // suffix[i] = sorted[i..n-1]의 경계
+    private static <T> double[][] suffixBounds(List<T> sorted, Function<T, Rectangle> rectOf) {
+        double[][] out = new double[sorted.size()][];
+        double[] acc = null;
+        for (int i = sorted.size() - 1; i >= 0; i--) {
+            acc = includeBounds(acc, rectOf.apply(sorted.get(i)));
+            out[i] = acc;
+        }
+        return out;
+    }
+
+    private static double[] includeBounds(double[] b, Rectangle r) {
+        if (b == null) {
+            return new double[]{r.getLeftTop().getX(), r.getLeftTop().getY(),
+                    r.getRightBottom().getX(), r.getRightBottom().getY()};
+        }
+        return new double[]{Math.min(b[0], r.getLeftTop().getX()), Math.min(b[1], r.getLeftTop().getY()),
+                Math.max(b[2], r.getRightBottom().getX()), Math.max(b[3], r.getRightBottom().getY())};
+    }
+
+    private static double margin(double[] b) {
+        return (b[2] - b[0]) + (b[3] - b[1]);
+    }
+
+    private static double boundsArea(double[] b) {
+        return (b[2] - b[0]) * (b[3] - b[1]);
+    }
+
+    private static double boundsOverlap(double[] a, double[] b) {
+        double w = Math.min(a[2], b[2]) - Math.max(a[0], b[0]);
+        double h = Math.min(a[3], b[3]) - Math.max(a[1], b[1]);
+        if (w <= 0 || h <= 0) return 0;
+        return w * h;
+    }
+}
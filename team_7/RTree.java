@@ -1,6 +1,9 @@
 package org.dfpl.dbp.rtree.team_7;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 public interface RTree {
 
@@ -11,6 +14,32 @@ public interface RTree {
      */
     public void add(Point point);
 
+    /**
+     * 여러 Point를 한 번에 추가합니다. 같은 x, y 값을 갖는 Point는 추가하지 않습니다.
+     * 기본 구현은 add를 반복하며, 구현체에 따라 묶어서 더 빠르게 처리할 수 있습니다.
+     *
+     * @param points
+     */
+    public default void addAll(Collection<Point> points) {
+        for (Point point : points) {
+            add(point);
+        }
+    }
+
+    /**
+     * from에 있는 Point를 to로 옮깁니다. from이 없으면 아무것도 하지 않습니다.
+     * 기본 구현은 delete 후 add이며, 구현체에 따라 제자리에서 더 싸게 옮길 수 있습니다.
+     *
+     * @param from
+     * @param to
+     */
+    public default void update(Point from, Point to) {
+        if (from == null || to == null) return;
+        if (!search(new Rectangle(from, from)).hasNext()) return;
+        delete(from);
+        add(to);
+    }
+
     /**
      * RTree내에서 rectangle 범위내에 있는 Point들을 iterator로 반환합니다. (경계 포함)
      *
@@ -20,6 +49,21 @@ public interface RTree {
     public Iterator<Point> search(Rectangle rectangle);
 
 
+    /**
+     * RTree내에서 rectangle 범위내에 있는 Point 개수를 반환합니다. (경계 포함)
+     * 기본 구현은 search 결과를 세며, 구현체에 따라 점을 꺼내지 않고 셀 수 있습니다.
+     *
+     * @param rectangle
+     * @return 범위 안 Point 개수
+     */
+    public default long count(Rectangle rectangle) {
+        long n = 0;
+        for (Iterator<Point> it = search(rectangle); it.hasNext(); it.next()) {
+            n++;
+        }
+        return n;
+    }
+
     /**
      * RTree에서 source로 부터 가까운 최대 maxCount개의 Point들을 가까운 순서대로 반환합니다.
      *
@@ -29,6 +73,52 @@ public interface RTree {
      */
     public Iterator<Point> nearest(Point source, int maxCount);
 
+    /**
+     * RTree에서 center로부터 거리가 radius 이하인 Point들을 iterator로 반환합니다. (경계 포함)
+     * 기본 구현은 원을 감싸는 사각형으로 search 한 뒤 거리로 거른다.
+     *
+     * @param center
+     * @param radius
+     * @return iterator<Point>
+     */
+    public default Iterator<Point> withinDistance(Point center, double radius) {
+        if (radius < 0 || Double.isNaN(radius)) {
+            throw new IllegalArgumentException("radius must be non-negative: " + radius);
+        }
+        if (center == null) return Collections.emptyIterator();
+
+        Iterator<Point> candidates = search(new Rectangle(
+                new Point(center.getX() - radius, center.getY() - radius),
+                new Point(center.getX() + radius, center.getY() + radius)));
+        double radiusSq = radius * radius;
+        return new Iterator<Point>() {
+            private Point next = advance();
+
+            private Point advance() {
+                while (candidates.hasNext()) {
+                    Point p = candidates.next();
+                    double dx = p.getX() - center.getX();
+                    double dy = p.getY() - center.getY();
+                    if (dx * dx + dy * dy <= radiusSq) return p;
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Point next() {
+                if (next == null) throw new NoSuchElementException();
+                Point p = next;
+                next = advance();
+                return p;
+            }
+        };
+    }
+
     /**
      * Point가 R-Tree에 존재한다면 지운다.
      *
@@ -36,6 +126,18 @@ public interface RTree {
      */
     public void delete(Point point);
 
+    /**
+     * 여러 Point를 한 번에 지운다. 트리에 없는 Point는 무시한다.
+     * 기본 구현은 delete를 반복한다.
+     *
+     * @param points
+     */
+    public default void deleteAll(Collection<Point> points) {
+        for (Point point : points) {
+            delete(point);
+        }
+    }
+
     /**
      * R-Tree에 Point가 하나 이상 있다면 true를 반환한다.
      *
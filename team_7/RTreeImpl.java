@@ -2,19 +2,51 @@ package org.dfpl.dbp.rtree.team_7;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class RTreeImpl implements RTree {
 
     // 4-way R-Tree의 최소 엔트리 수 (MIN)는 MAX의 절반인 2
+    // (fan-out을 따로 지정하지 않았을 때의 기본값)
     public static final int MIN = RTreeNode.MAX / 2;
 
+    // 이 트리가 실제로 사용하는 노드당 최대/최소 엔트리 수 (fan-out)
+    private final int maxEntries;
+    private final int minEntries;
+
     // R-Tree의 루트 노드
     private RTreeNode root;
 
-    // 재삽입을 위해 수집된 Point 객체를 임시로 담는 리스트
-    private List<Point> reinsertPoints = new ArrayList<>();
+    // 삽입 정책 (LINEAR / RSTAR)
+    private final InsertionPolicy insertionPolicy;
+
+    // 노드 분할 전략 (Linear / Quadratic / R* / Hilbert)
+    private final SplitPolicy splitPolicy;
+
+    // R*: 강제 재삽입할 엔트리 비율 (overflow된 M+1개 중 30%)
+    private static final double REINSERT_FRACTION = 0.3;
+
+    // R*: 한 번의 삽입 동안 이미 강제 재삽입을 수행한 레벨 (리프 = 0)
+    private final Set<Integer> reinsertedLevels = new HashSet<>();
+
+    // 시각화 없는 KNN(nearest)의 탐색 힙. 읽기만 하는 스레드들이 동시에 nearest를 불러도 되도록 스레드마다 하나씩 둔다.
+    private static final ThreadLocal<DistanceHeap> SCRATCH_HEAP = ThreadLocal.withInitial(DistanceHeap::new);
+
+    // 좌표 → 리프 해시 인덱스 (setLeafIndexEnabled로 켰을 때만, 기본은 null)
+    private PointLeafIndex leafIndex;
+
+    // 트리 구조가 바뀔 때마다 증가 (search iterator가 순회 중 변경을 감지하는 데 사용)
+    private int modCount = 0;
 
     // 시각화용 리스너
     private RTreeListener listener;   // RTreePanel 을 붙여야함
@@ -29,7 +61,39 @@ public class RTreeImpl implements RTree {
 
     // RTreeImpl 생성자 → 시각화 on/off 선택 가능 (ComparingTest 등에서 사용)
     public RTreeImpl(boolean visualizationEnabled) {
+        this(visualizationEnabled, RTreeNode.MAX, MIN);
+    }
+
+    // fan-out만 지정하는 생성자 → 최소 엔트리 수는 maxEntries의 절반
+    public RTreeImpl(boolean visualizationEnabled, int maxEntries) {
+        this(visualizationEnabled, maxEntries, maxEntries / 2);
+    }
+
+    // fan-out과 최소 채움 수를 모두 지정하는 생성자 (대용량 데이터에서 트리 높이를 줄일 때 사용)
+    public RTreeImpl(boolean visualizationEnabled, int maxEntries, int minEntries) {
+        this(visualizationEnabled, maxEntries, minEntries, InsertionPolicy.LINEAR);
+    }
+
+    // 삽입 정책까지 지정하는 생성자 (R*-tree 등) → 분할 전략은 정책에 맞는 기본값
+    public RTreeImpl(boolean visualizationEnabled, int maxEntries, int minEntries, InsertionPolicy insertionPolicy) {
+        this(visualizationEnabled, maxEntries, minEntries, insertionPolicy,
+                insertionPolicy == InsertionPolicy.RSTAR ? new RStarSplitPolicy() : new LinearSplitPolicy());
+    }
+
+    // 삽입 정책과 분할 전략을 모두 지정하는 생성자
+    public RTreeImpl(boolean visualizationEnabled, int maxEntries, int minEntries,
+                     InsertionPolicy insertionPolicy, SplitPolicy splitPolicy) {
+        if (maxEntries < 2) {
+            throw new IllegalArgumentException("maxEntries must be at least 2: " + maxEntries);
+        }
+        if (minEntries < 1 || minEntries > maxEntries / 2) {
+            throw new IllegalArgumentException("minEntries must be in [1, maxEntries / 2]: " + minEntries);
+        }
         this.visualizationEnabled = visualizationEnabled;
+        this.maxEntries = maxEntries;
+        this.minEntries = minEntries;
+        this.insertionPolicy = insertionPolicy;
+        this.splitPolicy = splitPolicy;
         // R-tree는 최소 1개의 리프 노드로 시작해야 한다.
         this.root = RTreeNode.createLeaf();
         initVisualizer();
@@ -42,7 +106,7 @@ public class RTreeImpl implements RTree {
         this.listener = panel;
 
         SwingUtilities.invokeLater(() -> {
-            JFrame frame = new JFrame("4-way R-Tree Visualizer (RTreeImpl)");
+            JFrame frame = new JFrame(maxEntries + "-way R-Tree Visualizer (RTreeImpl)");
             frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
             frame.setLayout(new BorderLayout());
@@ -63,6 +127,7 @@ public class RTreeImpl implements RTree {
 
     @Override
     public void add(Point point) {
+        reinsertedLevels.clear();   // 새 삽입마다 R* 강제 재삽입 기록 초기화
         insert(point, false);   // ← 일반 추가: 로그 O
     }
 
@@ -76,18 +141,19 @@ public class RTreeImpl implements RTree {
 
         if (point == null) return;
 
+        // 인덱스가 있으면 트리 전체에서 중복을 바로 확인한다
+        if (leafIndex != null && leafIndex.get(point.getX(), point.getY()) != null) return;
+
         // 1. 삽입할 leaf 선택
         RTreeNode leaf = chooseLeaf(root, point);
 
-        // 2. 중복 점이면 무시
-        for (Point p : leaf.points) {
-            if (p.getX() == point.getX() && p.getY() == point.getY()) {
-                return;
-            }
-        }
+        // 2. 중복 점이면 무시 (인덱스가 없으면 고른 리프 안에서만 확인)
+        if (leafIndex == null && containsPoint(leaf.points, point)) return;
 
         // 3. 삽입
         leaf.points.add(point);
+        if (leafIndex != null) leafIndex.put(point.getX(), point.getY(), leaf);
+        modCount++;
 
         // 4. 리프노드 MBR 갱신
         leaf.updateMBR();
@@ -95,9 +161,9 @@ public class RTreeImpl implements RTree {
         // 5. 부모 방향으로 MBR 업데이트
         adjustMBR(leaf);
 
-        // 6. 용량 초과 시 분할(split)
-        if (leaf.points.size() > RTreeNode.MAX) {
-            splitLeaf(leaf);
+        // 6. 용량 초과 시 분할(split) 또는 R* 강제 재삽입
+        if (leaf.points.size() > maxEntries) {
+            overflowTreatment(leaf);
         }
 
         // 시각화 갱신
@@ -111,36 +177,116 @@ public class RTreeImpl implements RTree {
 
     // leaf 탐색 함수
     private RTreeNode chooseLeaf(RTreeNode node, Point p) {
+        return chooseSubtree(node, new Rectangle(p, p), 0);
+    }
+
+    // node에서부터 내려가며 r을 넣을 targetLevel(리프 = 0) 높이의 노드를 선택
+    private RTreeNode chooseSubtree(RTreeNode node, Rectangle r, int targetLevel) {
 
         if (node == null) return RTreeNode.createLeaf();
 
-        // 1. 리프노드면 반환
-        if (node.isLeaf) return node;
+        int level = height(node);
 
-        // 2. 내부 노드 → child 중 확장량 가장 작게 드는 것 선택
+        // 1. 리프노드이거나 목표 레벨이면 반환
+        while (!node.isLeaf && level > targetLevel) {
+            // 2. 내부 노드 → 정책에 따라 child 선택
+            RTreeNode best;
+            if (insertionPolicy == InsertionPolicy.RSTAR && level == 1) {
+                best = chooseByOverlap(node, r);
+            } else {
+                best = chooseByEnlargement(node, r);
+            }
+
+            if (best == null) {
+                if (node.children.isEmpty()) break;
+                best = node.children.get(0);
+            }
+            node = best;
+            level--;
+        }
+        return node;
+    }
+
+    // child 중 확장량 가장 작게 드는 것 선택 (R*에서는 동률이면 면적이 작은 쪽)
+    private RTreeNode chooseByEnlargement(RTreeNode node, Rectangle r) {
         RTreeNode best = null;
         double bestExpand = Double.MAX_VALUE;
 
-        Rectangle pRect = new Rectangle(p, p);
-
         for (RTreeNode child : node.children) {
             if (child.mbr == null) continue;
 
-            double expand = child.mbr.enlargement(pRect);
+            double expand = child.mbr.enlargement(r);
 
-            if (expand < bestExpand) {
+            if (expand < bestExpand ||
+                    (insertionPolicy == InsertionPolicy.RSTAR && best != null && expand == bestExpand
+                            && child.mbr.area() < best.mbr.area())) {
                 bestExpand = expand;
                 best = child;
             }
         }
+        return best;
+    }
 
-        if (best != null) {
-            return chooseLeaf(best, p);
-        } else if (!node.children.isEmpty() && node.children.get(0).mbr != null) {
-            return chooseLeaf(node.children.get(0), p);
-        } else {
-            return RTreeNode.createLeaf();
+    // R*: 자식이 리프인 노드에서는 다른 형제들과의 겹침 증가량이 가장 작은 child 선택
+    // (동률이면 면적 확장량, 그다음 면적). fan-out이 크면 확장량 상위 32개만 후보로 본다.
+    private RTreeNode chooseByOverlap(RTreeNode node, Rectangle r) {
+        List<RTreeNode> candidates = new ArrayList<>();
+        for (RTreeNode child : node.children) {
+            if (child.mbr != null) candidates.add(child);
+        }
+        if (candidates.isEmpty()) return null;
+
+        if (candidates.size() > 32) {
+            candidates.sort(Comparator.comparingDouble(c -> c.mbr.enlargement(r)));
+            candidates = candidates.subList(0, 32);
+        }
+
+        RTreeNode best = null;
+        double bestOverlap = Double.MAX_VALUE;
+        double bestExpand = Double.MAX_VALUE;
+        double bestArea = Double.MAX_VALUE;
+
+        for (RTreeNode child : candidates) {
+            Rectangle expanded = child.mbr.union(r);
+
+            double overlapDiff = 0;
+            for (RTreeNode other : node.children) {
+                if (other == child || other.mbr == null) continue;
+                overlapDiff += overlapArea(expanded, other.mbr) - overlapArea(child.mbr, other.mbr);
+            }
+            double expand = expanded.area() - child.mbr.area();
+            double area = child.mbr.area();
+
+            if (overlapDiff < bestOverlap ||
+                    (overlapDiff == bestOverlap && (expand < bestExpand ||
+                            (expand == bestExpand && area < bestArea)))) {
+                best = child;
+                bestOverlap = overlapDiff;
+                bestExpand = expand;
+                bestArea = area;
+            }
         }
+        return best;
+    }
+
+    // 두 사각형이 겹치는 부분의 면적 (안 겹치면 0)
+    private static double overlapArea(Rectangle a, Rectangle b) {
+        double w = Math.min(a.getRightBottom().getX(), b.getRightBottom().getX()) -
+                Math.max(a.getLeftTop().getX(), b.getLeftTop().getX());
+        double h = Math.min(a.getRightBottom().getY(), b.getRightBottom().getY()) -
+                Math.max(a.getLeftTop().getY(), b.getLeftTop().getY());
+        if (w <= 0 || h <= 0) return 0;
+        return w * h;
+    }
+
+    // node의 높이 (리프 = 0). 트리는 항상 균형이므로 첫 번째 자식만 따라 내려가면 된다.
+    private int height(RTreeNode node) {
+        int h = 0;
+        while (!node.isLeaf && !node.children.isEmpty()) {
+            node = node.children.get(0);
+            h++;
+        }
+        return h;
     }
 
     // 부모 방향 MBR 재계산
@@ -152,145 +298,129 @@ public class RTreeImpl implements RTree {
     }
 
     // ======================================================================
-    //  Leaf Node Split (4-way, Linear split)
-    private void splitLeaf(RTreeNode leaf) {
+    //  Overflow 처리 (R*: 레벨마다 첫 overflow는 강제 재삽입, 그 외에는 분할)
+    private void overflowTreatment(RTreeNode node) {
+        if (insertionPolicy == InsertionPolicy.RSTAR && node != root
+                && reinsertedLevels.add(height(node))) {
+            forcedReinsert(node);
+            return;
+        }
 
-        // 기존 포인트들 복사
-        List<Point> pts = new ArrayList<>(leaf.points);
-        leaf.points.clear();
+        if (node.isLeaf) {
+            splitLeaf(node);
+        } else {
+            splitInternal(node);
+        }
+    }
 
-        // 1. 가장 멀리 떨어진 두 점을 seed로 선택
-        Point seed1 = null;
-        Point seed2 = null;
-        double maxDist = -1;
-
-        for (int i = 0; i < pts.size(); i++) {
-            for (int j = i + 1; j < pts.size(); j++) {
-                double d = pts.get(i).distance(pts.get(j));
-                if (d > maxDist) {
-                    maxDist = d;
-                    seed1 = pts.get(i);
-                    seed2 = pts.get(j);
-                }
+    // R*: MBR 중심에서 가장 먼 엔트리들을 떼어낸 뒤, 가까운 것부터 같은 레벨에 다시 삽입
+    private void forcedReinsert(RTreeNode node) {
+        double cx = centerX(node);
+        double cy = centerY(node);
+
+        int size = node.isLeaf ? node.points.size() : node.children.size();
+        int count = Math.max(1, (int) Math.round(size * REINSERT_FRACTION));
+        count = Math.min(count, size - minEntries);
+        if (count <= 0) {
+            if (node.isLeaf) splitLeaf(node); else splitInternal(node);
+            return;
+        }
+
+        if (node.isLeaf) {
+            node.points.sort(Comparator.comparingDouble(
+                    (Point p) -> squaredDist(p.getX(), p.getY(), cx, cy)).reversed());
+            List<Point> removed = new ArrayList<>(node.points.subList(0, count));
+            node.points.subList(0, count).clear();
+            unindex(removed);
+            adjustMBR(node);
+
+            Collections.reverse(removed);   // close reinsert: 중심에 가까운 것부터
+            for (Point p : removed) {
+                insert(p, true);
+            }
+        } else {
+            node.children.sort(Comparator.comparingDouble(
+                    (RTreeNode c) -> squaredDist(centerX(c), centerY(c), cx, cy)).reversed());
+            List<RTreeNode> removed = new ArrayList<>(node.children.subList(0, count));
+            node.children.subList(0, count).clear();
+            adjustMBR(node);
+
+            Collections.reverse(removed);
+            for (RTreeNode child : removed) {
+                insertSubtree(child, height(child));
             }
         }
+    }
 
-        if (seed1 == null || seed2 == null) return;
+    // 서브트리 하나를 원래 높이(level)를 유지한 채로 다시 매단다
+    private void insertSubtree(RTreeNode subtree, int level) {
+        RTreeNode target = chooseSubtree(root, subtree.mbr, level + 1);
 
-        // 새 리프 노드 생성
-        RTreeNode newLeaf = RTreeNode.createLeaf();
-        newLeaf.parent = leaf.parent;
+        target.children.add(subtree);
+        subtree.parent = target;
+        adjustMBR(target);
 
-        // seed 배치
-        leaf.points.add(seed1);
-        newLeaf.points.add(seed2);
+        if (target.children.size() > maxEntries) {
+            overflowTreatment(target);
+        }
+    }
 
-        // seed만 있을 때의 MBR 계산
-        leaf.updateMBR();
-        newLeaf.updateMBR();
+    private static double squaredDist(double x1, double y1, double x2, double y2) {
+        double dx = x1 - x2;
+        double dy = y1 - y2;
+        return dx * dx + dy * dy;
+    }
 
-        // 2. 나머지 포인트 배치
-        for (Point p : pts) {
-            if (p == seed1 || p == seed2) continue;
+    // ======================================================================
+    //  Leaf Node Split (분할 방식은 splitPolicy가 결정)
+    private void splitLeaf(RTreeNode leaf) {
 
-            double enlargeOld = enlargementAfterInsert(leaf, p);
-            double enlargeNew = enlargementAfterInsert(newLeaf, p);
+        List<List<Point>> groups = splitPolicy.split(new ArrayList<>(leaf.points), p -> new Rectangle(p, p), minEntries);
 
-            if (enlargeOld <= enlargeNew) {
-                leaf.points.add(p);
-            } else {
-                newLeaf.points.add(p);
-            }
-        }
+        // 새 리프 노드 생성
+        RTreeNode newLeaf = RTreeNode.createLeaf();
+        newLeaf.parent = leaf.parent;
+
+        // 0번 그룹은 기존 리프, 1번 그룹은 새 리프
+        leaf.points.clear();
+        leaf.points.addAll(groups.get(0));
+        newLeaf.points.addAll(groups.get(1));
 
         leaf.updateMBR();
         newLeaf.updateMBR();
+        if (leafIndex != null) leafIndex.putAll(newLeaf);
 
-        // 3. 부모 갱신
+        // 부모 갱신
         adjustParentAfterSplit(leaf, newLeaf);
     }
 
-    // leaf에 점 하나 더 넣었을 때 면적 증가량 계산
-    private double enlargementAfterInsert(RTreeNode leaf, Point p) {
-        Rectangle pRect = new Rectangle(p, p);
-        if (leaf.mbr == null) {
-            return pRect.area();
-        }
-        Rectangle newMBR = leaf.mbr.union(pRect);
-        return newMBR.area() - leaf.mbr.area();
-    }
-
     // ======================================================================
     //  Internal Node Split
     private void splitInternal(RTreeNode node) {
 
-        List<RTreeNode> children = new ArrayList<>(node.children);
-        node.children.clear();
-
-        // 1. seed 두 개 선택 (MBR 면적 차이가 가장 큰 두 자식)
-        RTreeNode seed1 = null;
-        RTreeNode seed2 = null;
-        double maxDiff = -1;
-
-        for (int i = 0; i < children.size(); i++) {
-            for (int j = i + 1; j < children.size(); j++) {
-                if (children.get(i).mbr == null || children.get(j).mbr == null) continue;
-
-                double diff = Math.abs(children.get(i).mbr.area() - children.get(j).mbr.area());
-                if (diff > maxDiff) {
-                    maxDiff = diff;
-                    seed1 = children.get(i);
-                    seed2 = children.get(j);
-                }
-            }
-        }
-
-        if (seed1 == null || seed2 == null) return;
+        List<List<RTreeNode>> groups = splitPolicy.split(new ArrayList<>(node.children), c -> c.mbr, minEntries);
 
         RTreeNode group1 = node;                 // 기존 노드가 그룹1
         RTreeNode group2 = RTreeNode.createInternal();
         group2.parent = node.parent;
 
-        group1.children.add(seed1);
-        group2.children.add(seed2);
-        seed1.parent = group1;
-        seed2.parent = group2;
-
-        group1.updateMBR();
-        group2.updateMBR();
-
-        // 2. 나머지 자식들 배치
-        for (RTreeNode c : children) {
-            if (c == seed1 || c == seed2) continue;
-
-            double enlarge1 = enlargementAfterInsert(group1, c.mbr);
-            double enlarge2 = enlargementAfterInsert(group2, c.mbr);
-
-            if (enlarge1 <= enlarge2) {
-                group1.children.add(c);
-                c.parent = group1;
-            } else {
-                group2.children.add(c);
-                c.parent = group2;
-            }
+        group1.children.clear();
+        for (RTreeNode c : groups.get(0)) {
+            group1.children.add(c);
+            c.parent = group1;
+        }
+        for (RTreeNode c : groups.get(1)) {
+            group2.children.add(c);
+            c.parent = group2;
         }
 
         group1.updateMBR();
         group2.updateMBR();
 
-        // 3. 부모 갱신
+        // 부모 갱신
         adjustParentAfterSplit(group1, group2);
     }
 
-    // 내부 노드에 Rectangle 하나 더 포함시킬 때 증가 면적
-    private double enlargementAfterInsert(RTreeNode node, Rectangle r) {
-        if (node.mbr == null) {
-            return r.area();
-        }
-        Rectangle newMBR = node.mbr.union(r);
-        return newMBR.area() - node.mbr.area();
-    }
-
     // leaf/internal split 후 부모 처리 (root split 포함)
     private void adjustParentAfterSplit(RTreeNode n1, RTreeNode n2) {
 
@@ -312,14 +442,399 @@ public class RTreeImpl implements RTree {
         parent.children.add(n2);
         n2.parent = parent;
 
-        // parent도 overflow면 다시 split
-        if (parent.children.size() > RTreeNode.MAX) {
-            splitInternal(parent);
+        // parent도 overflow면 다시 split (R*에서는 강제 재삽입이 먼저 일어날 수 있음)
+        if (parent.children.size() > maxEntries) {
+            overflowTreatment(parent);
         } else {
             adjustMBR(parent);
         }
     }
 
+    // ======================================================================
+    //  Bulk Loading (Sort-Tile-Recursive)
+
+    /**
+     * 여러 Point를 STR(Sort-Tile-Recursive) 방식으로 한 번에 적재합니다.
+     * 리프를 maxEntries개씩 꽉 채워 만든 뒤 상위 레벨을 bottom-up으로 쌓는다.
+     * 이미 들어있는 Point가 있다면 함께 다시 적재하며, 같은 x, y 값을 갖는 Point는 한 번만 들어간다.
+     *
+     * @param points
+     */
+    public void bulkLoad(Collection<Point> points) {
+        // 기존 포인트 + 새 포인트 (중복 제거, 입력 순서 유지)
+        Set<Point> unique = new LinkedHashSet<>();
+        collectPoints(root, unique);
+        for (Point p : points) {
+            if (p != null) unique.add(p);
+        }
+
+        if (unique.isEmpty()) {
+            root = RTreeNode.createLeaf();
+            if (leafIndex != null) leafIndex.clear();
+            modCount++;
+            notifyTreeChanged();
+            return;
+        }
+
+        // 1. 리프 레벨 패킹
+        List<RTreeNode> level = new ArrayList<>();
+        for (List<Point> group : strPartition(new ArrayList<>(unique), Point::getX, Point::getY)) {
+            RTreeNode leaf = RTreeNode.createLeaf();
+            leaf.points.addAll(group);
+            leaf.updateMBR();
+            level.add(leaf);
+        }
+
+        // 2. 노드가 하나 남을 때까지 상위 레벨을 MBR 중심 기준으로 패킹
+        while (level.size() > 1) {
+            List<RTreeNode> upper = new ArrayList<>();
+            for (List<RTreeNode> group : strPartition(level, RTreeImpl::centerX, RTreeImpl::centerY)) {
+                RTreeNode internal = RTreeNode.createInternal();
+                for (RTreeNode child : group) {
+                    internal.children.add(child);
+                    child.parent = internal;
+                }
+                internal.updateMBR();
+                upper.add(internal);
+            }
+            level = upper;
+        }
+
+        root = level.get(0);
+        root.parent = null;
+        if (leafIndex != null) leafIndex.rebuild(root);
+        modCount++;
+
+        notifyTreeChanged();
+        log("BULK LOAD: " + unique.size() + " points");
+    }
+
+    // STR 한 레벨 분할: x로 정렬해 세로 slice로 나누고, 각 slice를 y로 정렬해 maxEntries개씩 묶는다.
+    private <T> List<List<T>> strPartition(List<T> entries,
+                                           ToDoubleFunction<T> xKey,
+                                           ToDoubleFunction<T> yKey) {
+        List<T> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparingDouble(xKey));
+
+        int nodeCount = (sorted.size() + maxEntries - 1) / maxEntries;
+        int sliceCount = (int) Math.ceil(Math.sqrt(nodeCount));
+        int sliceSize = sliceCount * maxEntries;
+
+        List<List<T>> groups = new ArrayList<>();
+        for (int start = 0; start < sorted.size(); start += sliceSize) {
+            List<T> slice = new ArrayList<>(sorted.subList(start, Math.min(start + sliceSize, sorted.size())));
+            slice.sort(Comparator.comparingDouble(yKey));
+            for (int i = 0; i < slice.size(); i += maxEntries) {
+                groups.add(new ArrayList<>(slice.subList(i, Math.min(i + maxEntries, slice.size()))));
+            }
+        }
+
+        // 마지막 slice만 덜 찰 수 있으므로, 마지막 그룹이 minEntries보다 작으면 앞 그룹에서 빌려와 채운다
+        if (groups.size() > 1) {
+            List<T> last = groups.get(groups.size() - 1);
+            if (last.size() < minEntries) {
+                List<T> prev = groups.get(groups.size() - 2);
+                while (last.size() < minEntries) {
+                    last.add(0, prev.remove(prev.size() - 1));
+                }
+            }
+        }
+        return groups;
+    }
+
+    private static double centerX(RTreeNode node) {
+        return (node.mbr.getLeftTop().getX() + node.mbr.getRightBottom().getX()) / 2;
+    }
+
+    private static double centerY(RTreeNode node) {
+        return (node.mbr.getLeftTop().getY() + node.mbr.getRightBottom().getY()) / 2;
+    }
+
+    // ======================================================================
+    //  Batch Insert / Delete
+
+    /**
+     * 여러 Point를 Hilbert 순서로 정렬해 한 번에 삽입합니다.
+     * 가까운 점이 연달아 들어오므로 직전 리프가 점을 덮으면 루트부터 다시 내려가지 않고,
+     * 조상 MBR은 점마다 갱신하지 않고 batch 끝에 건드린 경로만 한 번씩 다시 계산한다.
+     *
+     * @param points
+     */
+    @Override
+    public void addAll(Collection<Point> points) {
+        if (points == null || points.isEmpty()) return;
+
+        // 시각화 모드에서는 한 점씩 과정을 보여준다
+        if (visualizationEnabled) {
+            for (Point p : points) add(p);
+            return;
+        }
+        insertBatch(points);
+    }
+
+    // addAll 본체. Condense 후 재삽입에서도 쓰며, 시각화는 부르는 쪽에서 한 번만 갱신한다.
+    private void insertBatch(Collection<Point> points) {
+        if (points.isEmpty()) return;
+        if (root == null) {
+            root = RTreeNode.createLeaf();
+        }
+
+        Set<RTreeNode> touched = new LinkedHashSet<>();
+        RTreeNode leaf = null;
+        Point prev = null;
+        for (Point point : hilbertOrder(points)) {
+            // 같은 좌표는 정렬 후 붙어 있으므로 batch 안의 중복은 여기서 거른다
+            if (prev != null && prev.getX() == point.getX() && prev.getY() == point.getY()) continue;
+            prev = point;
+            reinsertedLevels.clear();
+
+            // batch 도중에는 조상 MBR이 작게 남아 있을 수 있지만, 리프 선택이 조금 덜 좋아질 뿐 결과는 맞다
+            if (leafIndex != null && leafIndex.get(point.getX(), point.getY()) != null) continue;
+            if (leaf == null || leaf.mbr == null || !leaf.mbr.contains(point)) {
+                leaf = chooseLeaf(root, point);
+            }
+            if (leafIndex == null && containsPoint(leaf.points, point)) continue;
+
+            leaf.points.add(point);
+            if (leafIndex != null) leafIndex.put(point.getX(), point.getY(), leaf);
+            leaf.updateMBR();
+            touched.add(leaf);
+
+            if (leaf.points.size() > maxEntries) {
+                overflowTreatment(leaf);
+            }
+        }
+
+        refreshAncestors(touched);
+        modCount++;
+    }
+
+    /**
+     * 여러 Point를 Hilbert 순서로 정렬해 한 번에 지운다.
+     * 점을 모두 뺀 뒤 건드린 노드만 아래에서부터 한 번씩 정리(Condense)하고,
+     * 떼어낸 서브트리는 원래 높이에, 남은 점들은 addAll로 다시 넣는다.
+     *
+     * @param points
+     */
+    @Override
+    public void deleteAll(Collection<Point> points) {
+        if (points == null || points.isEmpty() || isEmpty()) return;
+
+        if (visualizationEnabled) {
+            for (Point p : points) delete(p);
+            return;
+        }
+
+        // 1. 점 제거 (MBR은 줄이지 않으므로 findLeaf는 그대로 동작한다)
+        Set<RTreeNode> touched = new LinkedHashSet<>();
+        RTreeNode leaf = null;
+        for (Point point : hilbertOrder(points)) {
+            if (leaf == null || !removePoint(leaf.points, point)) {
+                leaf = lookupLeaf(point);
+                if (leaf == null) continue;
+                removePoint(leaf.points, point);
+            }
+            if (leafIndex != null) leafIndex.remove(point.getX(), point.getY());
+            touched.add(leaf);
+        }
+        if (touched.isEmpty()) return;
+        modCount++;
+
+        // 2. 레벨 단위로 올라가며 모자란 노드는 떼어내고, 나머지는 MBR 재계산
+        List<RTreeNode> orphans = new ArrayList<>();
+        Set<RTreeNode> level = touched;
+        while (!level.isEmpty()) {
+            Set<RTreeNode> parents = new LinkedHashSet<>();
+            for (RTreeNode node : level) {
+                if (node == root) {
+                    node.updateMBR();
+                    continue;
+                }
+                int size = node.isLeaf ? node.points.size() : node.children.size();
+                if (size < minEntries) {
+                    node.parent.children.remove(node);
+                    orphans.add(node);
+                } else {
+                    node.updateMBR();
+                }
+                parents.add(node.parent);
+            }
+            level = parents;
+        }
+
+        // 3. 루트 정리 후 떼어낸 노드 재삽입
+        shrinkRoot();
+        reinsertOrphans(orphans);
+
+        notifyTreeChanged();
+    }
+
+    // batch 안의 점들을 Hilbert 곡선 순서로 정렬 (null은 제외)
+    private static List<Point> hilbertOrder(Collection<Point> points) {
+        List<Point> list = points instanceof List ? (List<Point>) points : new ArrayList<>(points);
+        int[] order = hilbertOrderIndices(list);
+
+        List<Point> sorted = new ArrayList<>(order.length);
+        for (int i : order) sorted.add(list.get(i));
+        return sorted;
+    }
+
+    // 건드린 리프들의 조상 MBR을 아래 레벨부터 한 번씩만 다시 계산
+    private void refreshAncestors(Set<RTreeNode> nodes) {
+        Set<RTreeNode> level = nodes;
+        while (!level.isEmpty()) {
+            Set<RTreeNode> parents = new LinkedHashSet<>();
+            for (RTreeNode node : level) {
+                if (node.parent != null) parents.add(node.parent);
+            }
+            for (RTreeNode parent : parents) {
+                parent.updateMBR();
+            }
+            level = parents;
+        }
+    }
+
+    private static boolean containsPoint(List<Point> points, Point target) {
+        for (Point p : points) {
+            if (p.getX() == target.getX() && p.getY() == target.getY()) return true;
+        }
+        return false;
+    }
+
+    private static boolean removePoint(List<Point> points, Point target) {
+        return points.removeIf(p -> p.getX() == target.getX() && p.getY() == target.getY());
+    }
+
+    // ======================================================================
+    //  Update (Move)
+
+    /**
+     * from에 있는 Point를 to로 옮깁니다. from이 없으면 아무것도 하지 않는다.
+     * to가 이미 트리에 있으면 두 점이 합쳐지므로 결과적으로 from만 지워진다. (delete + add와 같은 결과)
+     *
+     * 움직임이 작을수록 싸게 처리한다.
+     *   1. to가 리프 MBR 안이면 엔트리만 바꾼다. (조상은 MBR이 바뀐 곳까지만 다시 계산)
+     *   2. to가 부모 MBR 안이면 리프 MBR만 늘린다. (조상 MBR은 그대로, 좌표 합만 고친다)
+     *   3. 아니면 to를 덮는 가장 가까운 조상에서부터 다시 내려가 넣는다. (루트부터 내려가지 않는다)
+     * 점을 빼면 리프가 최소 엔트리 수보다 작아지는 경우에만 delete + add로 처리한다.
+     *
+     * @param from
+     * @param to
+     */
+    @Override
+    public void update(Point from, Point to) {
+        if (from == null || to == null || root == null) return;
+        if (from.getX() == to.getX() && from.getY() == to.getY()) return;
+
+        if (visualizationEnabled) {
+            if (lookupLeaf(from) == null) return;
+            delete(from);
+            add(to);
+            return;
+        }
+
+        RTreeNode leaf = lookupLeaf(from);
+        if (leaf == null) return;
+        int i = indexOf(leaf.points, from);
+        if (i < 0) return;
+
+        // to가 이미 있으면 옮길 자리가 없다 (인덱스가 없으면 delete + add와 같이 고른 리프만 확인)
+        if (leafIndex != null ? leafIndex.get(to.getX(), to.getY()) != null
+                : containsPoint(chooseLeaf(root, to).points, to)) {
+            delete(from);
+            return;
+        }
+
+        // 1, 2. 같은 리프에 그대로 둔다 (리프가 루트면 어디로 가든 그대로)
+        if (leaf.parent == null || leaf.mbr.contains(to) || leaf.parent.mbr.contains(to)) {
+            leaf.points.set(i, to);
+            if (leafIndex != null) {
+                leafIndex.remove(from.getX(), from.getY());
+                leafIndex.put(to.getX(), to.getY(), leaf);
+            }
+            propagateMove(leaf, to.getX() - from.getX(), to.getY() - from.getY());
+            modCount++;
+            return;
+        }
+
+        // 점을 빼면 모자라게 되는 리프는 condense가 필요하므로 일반 경로로
+        if (leaf != root && leaf.points.size() - 1 < minEntries) {
+            delete(from);
+            add(to);
+            return;
+        }
+
+        // 3. to를 덮는 가장 가까운 조상 (없으면 루트)
+        RTreeNode start = leaf.parent;
+        while (start.parent != null && !start.mbr.contains(to)) {
+            start = start.parent;
+        }
+
+        leaf.points.remove(i);
+        if (leafIndex != null) leafIndex.remove(from.getX(), from.getY());
+        adjustMBR(leaf);
+
+        RTreeNode target = chooseLeaf(start, to);
+        target.points.add(to);
+        if (leafIndex != null) leafIndex.put(to.getX(), to.getY(), target);
+        adjustMBR(target);
+        modCount++;
+
+        if (target.points.size() > maxEntries) {
+            reinsertedLevels.clear();
+            overflowTreatment(target);
+        }
+    }
+
+    // 리프 안에서 점 하나가 (dx, dy)만큼 움직인 뒤 조상 갱신.
+    // MBR이 바뀐 곳까지는 다시 계산하고, 그 위로는 좌표 합만 고친다 (점 개수는 그대로).
+    private void propagateMove(RTreeNode leaf, double dx, double dy) {
+        Rectangle before = leaf.mbr;
+        leaf.updateMBR();
+        boolean changed = !sameRect(before, leaf.mbr);
+
+        for (RTreeNode n = leaf.parent; n != null; n = n.parent) {
+            if (changed) {
+                before = n.mbr;
+                n.updateMBR();
+                changed = !sameRect(before, n.mbr);
+            } else {
+                n.sumX += dx;
+                n.sumY += dy;
+            }
+        }
+    }
+
+    private static boolean sameRect(Rectangle a, Rectangle b) {
+        if (a == null || b == null) return a == b;
+        return a.getLeftTop().getX() == b.getLeftTop().getX()
+                && a.getLeftTop().getY() == b.getLeftTop().getY()
+                && a.getRightBottom().getX() == b.getRightBottom().getX()
+                && a.getRightBottom().getY() == b.getRightBottom().getY();
+    }
+
+    private static int indexOf(List<Point> points, Point target) {
+        for (int i = 0; i < points.size(); i++) {
+            Point p = points.get(i);
+            if (p.getX() == target.getX() && p.getY() == target.getY()) return i;
+        }
+        return -1;
+    }
+
+    // ======================================================================
+    //  Persistence
+
+    /**
+     * 현재 트리를 고정 크기 페이지 파일로 저장합니다.
+     * 저장한 파일은 MappedRTree.open으로 다시 빌드하지 않고 바로 검색할 수 있다.
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void save(Path file) throws IOException {
+        MappedRTree.write(root, file);
+    }
+
     @Override
     public Iterator<Point> search(Rectangle rectangle) {        //반환값이 이터레이터
         // TODO 탐색함수 구현
@@ -328,75 +843,358 @@ public class RTreeImpl implements RTree {
         //  3. 점 구하는 함수 부르고, 돌아오면 해당하는 리스트 리턴
         if (root == null || (root.isLeaf && root.points.isEmpty())) return Collections.emptyIterator();
 
+        // 시각화가 꺼져 있으면 트리를 따라가며 결과를 하나씩 내주는 lazy iterator 반환
+        if (!visualizationEnabled) {
+            return new SearchIterator(rectangle);
+        }
+
         List<Point> result = new ArrayList<>();
         // ★ 시각화를 위한 방문 / 가지치기 리스트
         List<Rectangle> visited = new ArrayList<>();
         List<Rectangle> pruned = new ArrayList<>();
 
-        // 재귀 탐색 + 단계별 시각화
-        searchPoints(root, rectangle, result, visited, pruned);
+        // 재귀 탐색 + 단계별 시각화
+        searchPoints(root, rectangle, result, visited, pruned);
+
+        // ★ 최종 결과 상태를 잠깐 유지
+        sleepQuiet(700);   // 0.7~1초 정도 유지 (취향대로 수정 가능)
+
+        // ★ search 관련 오버레이만 초기화 (트리/포인트는 유지)
+        notifySearchStep(
+                null,
+                Collections.emptyList(),
+                Collections.emptyList(),
+                Collections.emptyList()
+        );
+
+        return result.iterator();
+    }
+
+    //TODO 재귀 탐색 함수 구현
+// 1. 받아온 사각형 rectangle에 해당 노드의 mbr이 겹치는 지 확인 및 가지치기
+// 2. 내부노드면 rectangle에 children의 mbr이 겹치는 지 확인 후 재귀 수행
+// 3. 리프노드면 points의 포인트가 사각형에 들어오는지 확인 후 결과값 추가
+    private void searchPoints(RTreeNode node,
+                              Rectangle rectangle,
+                              List<Point> result,
+                              List<Rectangle> visited,
+                              List<Rectangle> pruned) {
+
+        // node 자체가 가지치기 되는 경우
+        if (node.mbr == null || !rectangle.intersects(node.mbr)) {
+            if (node.mbr != null) {
+                pruned.add(node.mbr);
+                visualizeSearchStep(rectangle, visited, pruned, result);
+            }
+            return;
+        }
+
+        // 여기까지 왔으면 이 노드는 "방문"된 것
+        visited.add(node.mbr);
+        visualizeSearchStep(rectangle, visited, pruned, result);
+
+        // 내부노드라면
+        if (!node.isLeaf) {
+            for (RTreeNode child : node.children) {
+                if (child == null || child.mbr == null) continue;
+
+                if (rectangle.intersects(child.mbr)) {
+                    // child.mbr이 검색 범위와 겹치면 재귀 내려감
+                    searchPoints(child, rectangle, result, visited, pruned);
+                } else {
+                    //TODO:(Swing) child.mbr 이 가지치기 되는 경우
+                    pruned.add(child.mbr);
+                    visualizeSearchStep(rectangle, visited, pruned, result);
+                }
+            }
+            return;
+        }
+
+        // 리프노드라면 - 실제 포인트 확인
+        for (Point p : node.points) {
+            if (rectangle.contains(p)) {   //points의 포인트들이 사각형에 들어오는지 확인
+                result.add(p);  //있으면 결과값에 추가
+                //TODO:(Swing) 발견한 노드 녹색 표시 point는 p
+                visualizeSearchStep(rectangle, visited, pruned, result);
+            }
+        }
+    }
+
+    /**
+     * 범위 검색 결과를 순회하면서 만들어내는 iterator.
+     * 명시적인 스택(루트 → 현재 노드 경로)만 들고 있으므로 메모리는 O(트리 높이)이고,
+     * 결과를 몇 개만 꺼내고 멈추면 그만큼의 노드만 방문한다.
+     * 순회 도중 트리가 add / delete / bulkLoad로 바뀌면 ConcurrentModificationException을 던진다.
+     */
+    private class SearchIterator implements Iterator<Point> {
+
+        // 경로 상의 노드와, 그 노드에서 다음에 볼 엔트리(자식/포인트) 위치
+        private final Deque<RTreeNode> nodeStack = new ArrayDeque<>();
+        private final Deque<Integer> indexStack = new ArrayDeque<>();
+
+        private final Rectangle query;
+        private final int expectedModCount;
+        private Point next;
+
+        SearchIterator(Rectangle query) {
+            this(root, query, modCount);
+        }
+
+        // start 서브트리 안에서만 검색 (병렬 검색에서 나눠 받은 서브트리용)
+        SearchIterator(RTreeNode start, Rectangle query, int expectedModCount) {
+            this.query = query;
+            this.expectedModCount = expectedModCount;
+            if (start.mbr != null && query.intersects(start.mbr)) {
+                nodeStack.push(start);
+                indexStack.push(0);
+            }
+            advance();
+        }
+
+        // 다음 결과 Point를 찾을 때까지 트리를 내려가거나 되돌아온다
+        private void advance() {
+            next = null;
+            while (!nodeStack.isEmpty()) {
+                RTreeNode node = nodeStack.peek();
+                int i = indexStack.pop();
+
+                if (node.isLeaf) {
+                    while (i < node.points.size()) {
+                        Point p = node.points.get(i++);
+                        if (query.contains(p)) {
+                            indexStack.push(i);
+                            next = p;
+                            return;
+                        }
+                    }
+                    nodeStack.pop();
+                    continue;
+                }
+
+                // 내부노드: 검색 범위와 겹치는 다음 자식으로 내려간다
+                RTreeNode child = null;
+                while (i < node.children.size()) {
+                    RTreeNode c = node.children.get(i++);
+                    if (c != null && c.mbr != null && query.intersects(c.mbr)) {
+                        child = c;
+                        break;
+                    }
+                }
+                if (child == null) {
+                    nodeStack.pop();
+                    continue;
+                }
+                indexStack.push(i);
+                nodeStack.push(child);
+                indexStack.push(0);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            checkForComodification();
+            return next != null;
+        }
+
+        @Override
+        public Point next() {
+            checkForComodification();
+            if (next == null) throw new NoSuchElementException();
+            Point result = next;
+            advance();
+            return result;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    // ======================================================================
+    //  Parallel Search
+
+    // 예상 결과 규모(maxEntries^높이)가 이보다 작은 서브트리는 나누지 않고 한 스레드에서 순회
+    private static final int PARALLEL_CUTOFF = 4096;
+
+    /**
+     * search와 같은 결과를 ForkJoinPool에서 나눠서 구합니다.
+     * 겹치는 자식 서브트리마다 task를 만들고, 작아진 서브트리는 순차로 돈다.
+     * task마다 자기 리스트에 모은 뒤 합치므로 결과를 모을 때 경합이 없다.
+     *
+     * @param rectangle
+     * @return iterator<Point>
+     */
+    public Iterator<Point> searchParallel(Rectangle rectangle) {
+        if (isEmpty()) return Collections.emptyIterator();
+
+        int expectedModCount = modCount;
+        List<Point> result = ForkJoinPool.commonPool().invoke(new SearchTask(root, height(root), rectangle));
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        return result.iterator();
+    }
+
+    /**
+     * 범위 검색 결과를 Stream으로 반환합니다. parallel이면 서브트리 단위로 나눠 병렬로 순회한다.
+     *
+     * @param rectangle
+     * @param parallel
+     * @return Stream<Point>
+     */
+    public Stream<Point> searchStream(Rectangle rectangle, boolean parallel) {
+        return StreamSupport.stream(searchSpliterator(rectangle), parallel);
+    }
+
+    /**
+     * 범위 검색 결과를 내주는 Spliterator. trySplit은 아직 시작하지 않은 서브트리들을 반으로 나눈다.
+     *
+     * @param rectangle
+     * @return Spliterator<Point>
+     */
+    public Spliterator<Point> searchSpliterator(Rectangle rectangle) {
+        return new SearchSpliterator(rectangle);
+    }
+
+    // 서브트리 하나를 맡는 task. 높이가 cutoff 이하이면 순차로 모은다.
+    private class SearchTask extends RecursiveTask<List<Point>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final RTreeNode node;
+        private final int height;
+        private final Rectangle query;
+
+        SearchTask(RTreeNode node, int height, Rectangle query) {
+            this.node = node;
+            this.height = height;
+            this.query = query;
+        }
+
+        @Override
+        protected List<Point> compute() {
+            if (estimatedSize(height) < PARALLEL_CUTOFF) {
+                List<Point> out = new ArrayList<>();
+                collectInRange(node, query, out);
+                return out;
+            }
+
+            List<SearchTask> tasks = new ArrayList<>();
+            for (RTreeNode child : node.children) {
+                if (child.mbr != null && query.intersects(child.mbr)) {
+                    tasks.add(new SearchTask(child, height - 1, query));
+                }
+            }
+            if (tasks.isEmpty()) return new ArrayList<>();
+
+            // 마지막 task는 현재 스레드에서 직접 수행
+            for (int i = 0; i < tasks.size() - 1; i++) tasks.get(i).fork();
+            List<Point> out = tasks.get(tasks.size() - 1).compute();
+            for (int i = tasks.size() - 2; i >= 0; i--) {
+                out.addAll(tasks.get(i).join());
+            }
+            return out;
+        }
+    }
+
+    private void collectInRange(RTreeNode node, Rectangle query, List<Point> out) {
+        if (node.mbr == null || !query.intersects(node.mbr)) return;
+        if (node.isLeaf) {
+            for (Point p : node.points) {
+                if (query.contains(p)) out.add(p);
+            }
+            return;
+        }
+        for (RTreeNode child : node.children) {
+            collectInRange(child, query, out);
+        }
+    }
+
+    // 높이 h 서브트리에 들어있을 수 있는 최대 점 개수
+    private long estimatedSize(int h) {
+        long size = 1;
+        for (int i = 0; i <= h && size < Long.MAX_VALUE / maxEntries; i++) {
+            size *= maxEntries;
+        }
+        return size;
+    }
 
-        // ★ 최종 결과 상태를 잠깐 유지
-        sleepQuiet(700);   // 0.7~1초 정도 유지 (취향대로 수정 가능)
+    private class SearchSpliterator implements Spliterator<Point> {
 
-        // ★ search 관련 오버레이만 초기화 (트리/포인트는 유지)
-        notifySearchStep(
-                null,
-                Collections.emptyList(),
-                Collections.emptyList(),
-                Collections.emptyList()
-        );
+        // 아직 시작하지 않은 서브트리들 (모두 같은 높이)
+        private final Deque<RTreeNode> pending = new ArrayDeque<>();
+        private int pendingHeight;
 
-        return result.iterator();
-    }
+        // 현재 순회 중인 서브트리
+        private SearchIterator current;
 
-    //TODO 재귀 탐색 함수 구현
-// 1. 받아온 사각형 rectangle에 해당 노드의 mbr이 겹치는 지 확인 및 가지치기
-// 2. 내부노드면 rectangle에 children의 mbr이 겹치는 지 확인 후 재귀 수행
-// 3. 리프노드면 points의 포인트가 사각형에 들어오는지 확인 후 결과값 추가
-    private void searchPoints(RTreeNode node,
-                              Rectangle rectangle,
-                              List<Point> result,
-                              List<Rectangle> visited,
-                              List<Rectangle> pruned) {
+        private final Rectangle query;
+        private final int expectedModCount;
 
-        // node 자체가 가지치기 되는 경우
-        if (node.mbr == null || !rectangle.intersects(node.mbr)) {
-            if (node.mbr != null) {
-                pruned.add(node.mbr);
-                visualizeSearchStep(rectangle, visited, pruned, result);
+        SearchSpliterator(Rectangle query) {
+            this.query = query;
+            this.expectedModCount = modCount;
+            if (root != null && root.mbr != null && query.intersects(root.mbr)) {
+                pending.add(root);
+                pendingHeight = height(root);
             }
-            return;
         }
 
-        // 여기까지 왔으면 이 노드는 "방문"된 것
-        visited.add(node.mbr);
-        visualizeSearchStep(rectangle, visited, pruned, result);
-
-        // 내부노드라면
-        if (!node.isLeaf) {
-            for (RTreeNode child : node.children) {
-                if (child == null || child.mbr == null) continue;
+        private SearchSpliterator(Rectangle query, int expectedModCount, Collection<RTreeNode> nodes, int height) {
+            this.query = query;
+            this.expectedModCount = expectedModCount;
+            this.pending.addAll(nodes);
+            this.pendingHeight = height;
+        }
 
-                if (rectangle.intersects(child.mbr)) {
-                    // child.mbr이 검색 범위와 겹치면 재귀 내려감
-                    searchPoints(child, rectangle, result, visited, pruned);
-                } else {
-                    //TODO:(Swing) child.mbr 이 가지치기 되는 경우
-                    pruned.add(child.mbr);
-                    visualizeSearchStep(rectangle, visited, pruned, result);
+        @Override
+        public boolean tryAdvance(Consumer<? super Point> action) {
+            while (true) {
+                if (current != null) {
+                    if (current.hasNext()) {
+                        action.accept(current.next());
+                        return true;
+                    }
+                    current = null;
+                }
+                if (pending.isEmpty()) {
+                    if (modCount != expectedModCount) throw new ConcurrentModificationException();
+                    return false;
                 }
+                current = new SearchIterator(pending.poll(), query, expectedModCount);
             }
-            return;
         }
 
-        // 리프노드라면 - 실제 포인트 확인
-        for (Point p : node.points) {
-            if (rectangle.contains(p)) {   //points의 포인트들이 사각형에 들어오는지 확인
-                result.add(p);  //있으면 결과값에 추가
-                //TODO:(Swing) 발견한 노드 녹색 표시 point는 p
-                visualizeSearchStep(rectangle, visited, pruned, result);
+        @Override
+        public Spliterator<Point> trySplit() {
+            // 서브트리가 하나뿐이면 겹치는 자식들로 펼친다
+            while (pending.size() == 1 && pendingHeight > 0 && estimateSize() >= PARALLEL_CUTOFF) {
+                RTreeNode node = pending.poll();
+                for (RTreeNode child : node.children) {
+                    if (child.mbr != null && query.intersects(child.mbr)) pending.add(child);
+                }
+                pendingHeight--;
             }
+            if (pending.size() < 2 || estimateSize() < PARALLEL_CUTOFF) return null;
+
+            List<RTreeNode> half = new ArrayList<>();
+            for (int i = pending.size() / 2; i > 0; i--) half.add(pending.poll());
+            return new SearchSpliterator(query, expectedModCount, half, pendingHeight);
+        }
+
+        // 순회 중인 서브트리는 건드리지 않고 어림한다 (current.hasNext()는 변경 검사로 예외를 던질 수 있다)
+        @Override
+        public long estimateSize() {
+            if (pending.isEmpty()) return current != null ? 1 : 0;
+            long each = estimatedSize(pendingHeight);
+            return each > Long.MAX_VALUE / pending.size() ? Long.MAX_VALUE : each * pending.size();
+        }
+
+        @Override
+        public int characteristics() {
+            return NONNULL;
         }
     }
 
@@ -433,22 +1231,163 @@ public class RTreeImpl implements RTree {
         }
     }
 
-    // 점에서 사각형까지의 최소 거리 (0이면 겹치거나 안에 있음)
-    private double minDistToRectangle(Point p, Rectangle rect) {
-        double px = p.getX();
-        double py = p.getY();
+    // 점에서 MBR까지의 최소 거리의 제곱 (KNN hot path에서는 sqrt 없이 제곱 거리로만 비교)
+    private static double minDistSq(double px, double py, Rectangle rect) {
+        double dx = Math.max(0, Math.max(rect.getLeftTop().getX() - px, px - rect.getRightBottom().getX()));
+        double dy = Math.max(0, Math.max(rect.getLeftTop().getY() - py, py - rect.getRightBottom().getY()));
+        return dx * dx + dy * dy;
+    }
+
+    // best-first 탐색에서 노드를 펼쳐 자식(또는 Point)을 제곱 거리와 함께 힙에 넣는다
+    private static void expandInto(DistanceHeap heap, RTreeNode node, double px, double py) {
+        if (node.isLeaf) {
+            for (Point p : node.points) {
+                heap.push(squaredDist(p.getX(), p.getY(), px, py), p);
+            }
+        } else {
+            for (RTreeNode child : node.children) {
+                if (child == null || child.mbr == null) continue;
+                heap.push(minDistSq(px, py, child.mbr), child);
+            }
+        }
+    }
+
+    /**
+     * 시각화 없는 KNN. 노드와 Point를 하나의 최소 힙(제곱 거리)에 넣고 best-first로 꺼내므로
+     * Point는 가까운 순서대로 나온다 → 결과 큐도, 마지막 정렬도, sqrt도 필요 없다.
+     * 힙은 호출한 스레드의 것을 매번 비워서 재사용한다.
+     */
+    private List<Point> nearestBestFirst(Point source, int maxCount) {
+        return nearestBestFirst(source, maxCount, SCRATCH_HEAP.get());
+    }
+
+    // heap은 호출한 스레드 전용이어야 한다
+    private List<Point> nearestBestFirst(Point source, int maxCount, DistanceHeap heap) {
+        double px = source.getX();
+        double py = source.getY();
+
+        heap.clear();
+        List<Point> result = new ArrayList<>(Math.min(maxCount, 1024));
+
+        if (root.mbr != null) {
+            heap.push(minDistSq(px, py, root.mbr), root);
+        }
+        while (!heap.isEmpty() && result.size() < maxCount) {
+            Object top = heap.pop();
+            if (top instanceof Point) {
+                result.add((Point) top);
+            } else {
+                expandInto(heap, (RTreeNode) top, px, py);
+            }
+        }
+        heap.clear();
+        return result;
+    }
+
+    // ======================================================================
+    //  Batch KNN
+
+    // 한 task가 순서대로 처리하는 (Hilbert 순서상 이웃한) 질의 수
+    private static final int KNN_BATCH_GROUP = 64;
+
+    /**
+     * 여러 source에 대한 nearest를 한 번에 구합니다. 결과는 sources와 같은 순서의 리스트이다.
+     *
+     * @param sources
+     * @param maxCount
+     * @return source마다 가까운 순서의 Point 리스트
+     */
+    public List<List<Point>> nearestBatch(List<Point> sources, int maxCount) {
+        return nearestBatch(sources, maxCount, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * nearestBatch를 지정한 pool에서 수행합니다.
+     * source들을 Hilbert 순서로 정렬해 가까운 것끼리 KNN_BATCH_GROUP개씩 한 task로 묶는다.
+     * 한 task 안의 질의들은 같은 상위 노드들을 연달아 방문하므로 캐시에 남아 있는 노드를 다시 쓰게 되고,
+     * KNN 힙은 스레드마다 하나를 재사용한다.
+     *
+     * @param sources
+     * @param maxCount
+     * @param pool
+     * @return source마다 가까운 순서의 Point 리스트
+     */
+    public List<List<Point>> nearestBatch(List<Point> sources, int maxCount, ForkJoinPool pool) {
+        List<List<Point>> results = new ArrayList<>(Collections.nCopies(sources.size(), Collections.emptyList()));
+        if (sources.isEmpty() || maxCount <= 0 || isEmpty()) return results;
+
+        int[] order = hilbertOrderIndices(sources);
+        int expectedModCount = modCount;
+        pool.invoke(new NearestBatchTask(sources, order, 0, order.length, maxCount, results));
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        return results;
+    }
+
+    // order[lo, hi) 구간의 질의를 맡는 task. 결과는 원래 index 자리에 쓰므로 서로 겹치지 않는다.
+    private class NearestBatchTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Point> sources;
+        private final int[] order;
+        private final int lo, hi;
+        private final int maxCount;
+        private final List<List<Point>> results;
+
+        NearestBatchTask(List<Point> sources, int[] order, int lo, int hi, int maxCount, List<List<Point>> results) {
+            this.sources = sources;
+            this.order = order;
+            this.lo = lo;
+            this.hi = hi;
+            this.maxCount = maxCount;
+            this.results = results;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= KNN_BATCH_GROUP) {
+                DistanceHeap heap = SCRATCH_HEAP.get();
+                for (int i = lo; i < hi; i++) {
+                    int index = order[i];
+                    results.set(index, nearestBestFirst(sources.get(index), maxCount, heap));
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new NearestBatchTask(sources, order, lo, mid, maxCount, results),
+                    new NearestBatchTask(sources, order, mid, hi, maxCount, results));
+        }
+    }
 
-        double rx1 = rect.getLeftTop().getX();
-        double ry1 = rect.getLeftTop().getY();
-        double rx2 = rect.getRightBottom().getX();
-        double ry2 = rect.getRightBottom().getY();
+    // null이 아닌 source의 index를 Hilbert 순서로 정렬
+    private static int[] hilbertOrderIndices(List<Point> points) {
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        int n = 0;
+        for (Point p : points) {
+            if (p == null) continue;
+            n++;
+            minX = Math.min(minX, p.getX());
+            minY = Math.min(minY, p.getY());
+            maxX = Math.max(maxX, p.getX());
+            maxY = Math.max(maxY, p.getY());
+        }
 
-        //점이 사각형 밖에 있다면 가장 가까운 경계까지의 거리를 구한다
-        //사각형 안에있으면 0
-        double dx = Math.max(0, Math.max(rx1 - px, px - rx2));
-        double dy = Math.max(0, Math.max(ry1 - py, py - ry2));
+        long[] keys = new long[points.size()];
+        Integer[] order = new Integer[n];
+        for (int i = 0, k = 0; i < points.size(); i++) {
+            Point p = points.get(i);
+            if (p == null) continue;
+            keys[i] = HilbertCurve.index(p.getX(), p.getY(), minX, minY, maxX, maxY);
+            order[k++] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> keys[i]));
 
-        return Math.sqrt(dx * dx + dy * dy);	//거리 반환
+        int[] result = new int[n];
+        for (int i = 0; i < n; i++) result[i] = order[i];
+        return result;
     }
 
     //최근접 이웃 알고리즘(KNN)으로 탐색
@@ -464,6 +1403,11 @@ public class RTreeImpl implements RTree {
             return Collections.emptyIterator();
         }
 
+        // 시각화가 꺼져 있으면 제곱 거리 기반 best-first 탐색으로 maxCount개를 바로 구한다
+        if (!visualizationEnabled) {
+            return nearestBestFirst(source, maxCount).iterator();
+        }
+
         // 결과 저장용 우선순위 큐
         PriorityQueue<Point> result = new PriorityQueue<>(maxCount,
                 (p1, p2) -> Double.compare(p2.distance(source), p1.distance(source))); // 내림차순
@@ -476,7 +1420,7 @@ public class RTreeImpl implements RTree {
         List<Point> removedPointsVis = new ArrayList<>();
 
         // 루트 노드를 후보로 넣고 시작
-        candidates.offer(new Candidate(root, minDistToRectangle(source, root.mbr)));
+        candidates.offer(new Candidate(root, root.mbr.minDistance(source)));
 
         //TODO: KNN탐색 시작:(Swing)  기준점 source(이건 표시되니 괜찮.), 찾을 개수 maxCount + 현재 찾은 개수 0(result:size()) 띄워주기
         activeNodes.clear();
@@ -547,7 +1491,7 @@ public class RTreeImpl implements RTree {
             } else { // 내부 노드: 자식들 추가
                 for (RTreeNode child : cand.node.children) {
                     if (child == null || child.mbr == null) continue;
-                    double childMinDist = minDistToRectangle(source, child.mbr);
+                    double childMinDist = child.mbr.minDistance(source);
                     candidates.offer(new Candidate(child, childMinDist));
                 }
                 // 내부 노드 방문 상태도 잠깐 보여줌
@@ -586,13 +1530,282 @@ public class RTreeImpl implements RTree {
         return sortedResult.iterator();
     }
 
+    /**
+     * source에서 가까운 순서대로 트리의 모든 Point를 하나씩 반환합니다. (Hjaltason–Samet distance browsing)
+     * k를 미리 정하지 않으며, 꺼낸 만큼만 노드를 펼치므로 몇 개만 보고 멈추면 그 비용만 든다.
+     * 순회 도중 트리가 바뀌면 ConcurrentModificationException을 던진다.
+     *
+     * @param source
+     * @return iterator<Point>
+     */
+    public Iterator<Point> nearest(Point source) {
+        if (source == null || root == null || (root.isLeaf && root.points.isEmpty())) {
+            return Collections.emptyIterator();
+        }
+        return new NearestIterator(source);
+    }
+
+    // 노드와 Point를 하나의 최소 힙에 제곱 거리 순으로 넣고, 맨 앞이 Point일 때 그 Point를 내보낸다
+    private class NearestIterator implements Iterator<Point> {
+
+        // iterator는 살아있는 동안 힙을 계속 써야 하므로 트리의 공용 힙이 아닌 자기 힙을 쓴다
+        private final DistanceHeap heap = new DistanceHeap();
+        private final double px;
+        private final double py;
+        private final int expectedModCount;
+
+        NearestIterator(Point source) {
+            this.px = source.getX();
+            this.py = source.getY();
+            this.expectedModCount = modCount;
+            if (root.mbr != null) {
+                heap.push(minDistSq(px, py, root.mbr), root);
+            }
+        }
+
+        // 힙 맨 앞이 Point가 될 때까지 노드를 펼친다
+        private void expandUntilPoint() {
+            while (!heap.isEmpty() && !(heap.peekValue() instanceof Point)) {
+                expandInto(heap, (RTreeNode) heap.pop(), px, py);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            checkForComodification();
+            expandUntilPoint();
+            return !heap.isEmpty();
+        }
+
+        @Override
+        public Point next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return (Point) heap.pop();
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    // ======================================================================
+    //  Distance (Circle) Query
+
+    /**
+     * center에서 거리가 radius 이하인 Point들을 하나씩 반환합니다. (경계 포함, 순서는 트리 순회 순서)
+     * MBR까지의 최소 거리가 radius보다 큰 노드는 가지치기하고,
+     * MBR의 가장 먼 모서리까지도 radius 이내인 노드는 점마다 거리를 재지 않고 통째로 내보낸다.
+     *
+     * @param center
+     * @param radius
+     * @return iterator<Point>
+     */
+    @Override
+    public Iterator<Point> withinDistance(Point center, double radius) {
+        if (radius < 0 || Double.isNaN(radius)) {
+            throw new IllegalArgumentException("radius must be non-negative: " + radius);
+        }
+        if (center == null || isEmpty()) return Collections.emptyIterator();
+        return new WithinDistanceIterator(center, radius);
+    }
+
+    // 점에서 사각형의 가장 먼 모서리까지의 거리 제곱
+    private static double maxDistSq(double px, double py, Rectangle rect) {
+        double dx = Math.max(Math.abs(px - rect.getLeftTop().getX()), Math.abs(px - rect.getRightBottom().getX()));
+        double dy = Math.max(Math.abs(py - rect.getLeftTop().getY()), Math.abs(py - rect.getRightBottom().getY()));
+        return dx * dx + dy * dy;
+    }
+
+    private class WithinDistanceIterator implements Iterator<Point> {
+
+        // 경로 상의 노드, 그 노드에서 다음에 볼 엔트리 위치, 노드가 원 안에 통째로 들어가는지
+        private final Deque<RTreeNode> nodeStack = new ArrayDeque<>();
+        private final Deque<Integer> indexStack = new ArrayDeque<>();
+        private final Deque<Boolean> insideStack = new ArrayDeque<>();
+
+        private final double cx, cy, radiusSq;
+        private final int expectedModCount;
+        private Point next;
+
+        WithinDistanceIterator(Point center, double radius) {
+            this.cx = center.getX();
+            this.cy = center.getY();
+            this.radiusSq = radius * radius;
+            this.expectedModCount = modCount;
+            push(root, false);
+            advance();
+        }
+
+        private void push(RTreeNode node, boolean parentInside) {
+            if (node == null || node.mbr == null) return;
+            boolean inside = parentInside || maxDistSq(cx, cy, node.mbr) <= radiusSq;
+            if (!inside && minDistSq(cx, cy, node.mbr) > radiusSq) return;
+            nodeStack.push(node);
+            indexStack.push(0);
+            insideStack.push(inside);
+        }
+
+        private void advance() {
+            next = null;
+            while (!nodeStack.isEmpty()) {
+                RTreeNode node = nodeStack.peek();
+                boolean inside = insideStack.peek();
+                int i = indexStack.pop();
+
+                if (node.isLeaf) {
+                    while (i < node.points.size()) {
+                        Point p = node.points.get(i++);
+                        if (inside || squaredDist(p.getX(), p.getY(), cx, cy) <= radiusSq) {
+                            indexStack.push(i);
+                            next = p;
+                            return;
+                        }
+                    }
+                    nodeStack.pop();
+                    insideStack.pop();
+                    continue;
+                }
+
+                if (i < node.children.size()) {
+                    indexStack.push(i + 1);
+                    push(node.children.get(i), inside);
+                    continue;
+                }
+                nodeStack.pop();
+                insideStack.pop();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            checkForComodification();
+            return next != null;
+        }
+
+        @Override
+        public Point next() {
+            checkForComodification();
+            if (next == null) throw new NoSuchElementException();
+            Point result = next;
+            advance();
+            return result;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    // ======================================================================
+    //  Count / Aggregate
+    //  노드마다 서브트리 점 개수와 x / y 합을 들고 있으므로 (RTreeNode.updateMBR에서 갱신),
+    //  MBR이 질의 범위 안에 통째로 들어가는 서브트리는 내려가지 않고 값만 더한다.
+
+    /**
+     * RTree에 들어있는 Point 개수를 반환합니다.
+     *
+     * @return 전체 Point 개수
+     */
+    public int size() {
+        return root == null ? 0 : root.count;
+    }
+
+    /**
+     * rectangle 범위 안(경계 포함)의 Point 개수를 반환합니다. Point 객체를 만들거나 모으지 않는다.
+     *
+     * @param rectangle
+     * @return 범위 안 Point 개수
+     */
+    @Override
+    public long count(Rectangle rectangle) {
+        if (rectangle == null || root == null) return 0;
+        return count(root, rectangle);
+    }
+
+    private long count(RTreeNode node, Rectangle query) {
+        if (node.mbr == null || !query.intersects(node.mbr)) return 0;
+        if (query.contains(node.mbr)) return node.count;
+
+        long n = 0;
+        if (node.isLeaf) {
+            for (Point p : node.points) {
+                if (query.contains(p)) n++;
+            }
+        } else {
+            for (RTreeNode child : node.children) {
+                n += count(child, query);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * rectangle 범위 안(경계 포함) Point들의 개수, 좌표 합, 감싸는 사각형을 한 번에 구합니다.
+     *
+     * @param rectangle
+     * @return RangeAggregate
+     */
+    public RangeAggregate aggregate(Rectangle rectangle) {
+        // {count, sumX, sumY, minX, minY, maxX, maxY}
+        double[] acc = {0, 0, 0,
+                Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        if (rectangle != null && root != null) {
+            aggregate(root, rectangle, acc);
+        }
+        if (acc[0] == 0) return new RangeAggregate(0, 0, 0, null);
+        return new RangeAggregate((long) acc[0], acc[1], acc[2],
+                new Rectangle(new Point(acc[3], acc[4]), new Point(acc[5], acc[6])));
+    }
+
+    private void aggregate(RTreeNode node, Rectangle query, double[] acc) {
+        if (node.mbr == null || !query.intersects(node.mbr)) return;
+
+        if (query.contains(node.mbr)) {
+            // MBR은 서브트리 점들을 딱 맞게 감싸므로 그대로 범위 경계가 된다
+            acc[0] += node.count;
+            acc[1] += node.sumX;
+            acc[2] += node.sumY;
+            accumulateBounds(acc, node.mbr.getLeftTop().getX(), node.mbr.getLeftTop().getY(),
+                    node.mbr.getRightBottom().getX(), node.mbr.getRightBottom().getY());
+            return;
+        }
+
+        if (node.isLeaf) {
+            for (Point p : node.points) {
+                if (!query.contains(p)) continue;
+                acc[0]++;
+                acc[1] += p.getX();
+                acc[2] += p.getY();
+                accumulateBounds(acc, p.getX(), p.getY(), p.getX(), p.getY());
+            }
+        } else {
+            for (RTreeNode child : node.children) {
+                aggregate(child, query, acc);
+            }
+        }
+    }
+
+    private static void accumulateBounds(double[] acc, double minX, double minY, double maxX, double maxY) {
+        acc[3] = Math.min(acc[3], minX);
+        acc[4] = Math.min(acc[4], minY);
+        acc[5] = Math.max(acc[5], maxX);
+        acc[6] = Math.max(acc[6], maxY);
+    }
+
     // ======================================================================
     //  Deletion Logic (Condense Tree 및 재삽입 포함)
     @Override
     public void delete(Point point) {
         if (root == null) return;
 
-        RTreeNode leaf = findLeaf(root, point);
+        if (point == null) return;
+
+        RTreeNode leaf = lookupLeaf(point);
         if (leaf == null) return;
 
         // Point의 equals()를 사용하여 요소 제거
@@ -600,20 +1813,12 @@ public class RTreeImpl implements RTree {
                 p.getX() == point.getX() &&
                         p.getY() == point.getY()
         );
+        if (leafIndex != null) leafIndex.remove(point.getX(), point.getY());
+        modCount++;
 
-        // 1. 노드 재조정 (Condense Tree) 로직 시작
+        // 노드 재조정 (Condense Tree): 모자란 노드를 떼어내고, 루트를 정리한 뒤 떼어낸 엔트리를 원래 레벨에 다시 넣는다
         condenseTree(leaf);
 
-        // 2. 루트 노드 정리
-        if (!root.isLeaf && root.children.size() == 1) {
-            RTreeNode newRoot = root.children.get(0);
-            newRoot.parent = null;
-            root = newRoot;
-        } else if (!root.isLeaf && root.children.isEmpty() ||
-                root.isLeaf && root.points.isEmpty()) {
-            root = RTreeNode.createLeaf();
-        }
-
         log("DELETE: " + point);
 
 
@@ -622,8 +1827,11 @@ public class RTreeImpl implements RTree {
 
     /**
      * @brief 삭제 후 노드 재조정 (Condense Tree) 로직
+     * 리프에서 루트까지 올라가며 최소 엔트리 수보다 작아진 노드를 부모에서 떼어내고, 남는 노드는 MBR을 다시 계산한다.
+     * 떼어낸 노드는 루트를 정리한 뒤 reinsertOrphans로 다시 넣는다 (내부 노드의 서브트리도 버리지 않는다).
      */
     private void condenseTree(RTreeNode node) {
+        List<RTreeNode> orphans = new ArrayList<>();
         RTreeNode n = node;
 
         while (n != null && n != root) {
@@ -632,24 +1840,17 @@ public class RTreeImpl implements RTree {
             if (parent == null) break;
 
             // 1. 최소 엔트리 조건 검사
-            if ((n.isLeaf && n.points.size() < MIN) ||
-                    (!n.isLeaf && n.children.size() < MIN)) {
+            if ((n.isLeaf && n.points.size() < minEntries) ||
+                    (!n.isLeaf && n.children.size() < minEntries)) {
 
-                // 최소 조건을 위반하면 부모로부터 제거
+                // 최소 조건을 위반하면 부모로부터 제거하고 재삽입 대상으로 모은다
                 parent.children.remove(n);
-
-                // === 재삽입을 위한 엔트리 수집 ===
-                if (n.isLeaf) {
-                    reinsertPoints.addAll(n.points); // 리프 노드의 Point 수집
-                    n.points.clear();
-                } else {
-                    // 내부 노드의 자식들(MBR)도 재삽입해야 하나, 과제 단순화를 위해 무시
-                }
+                orphans.add(n);
+            } else {
+                // 남는 노드는 MBR과 점 개수를 바로 맞춘다 (부모 집계가 이 값을 더한다)
+                n.updateMBR();
             }
 
-            // 2. MBR 갱신
-            parent.updateMBR();
-
             n = parent;
         }
 
@@ -657,22 +1858,47 @@ public class RTreeImpl implements RTree {
             root.updateMBR();
         }
 
-        // === 재삽입 실행 ===
-        performReinsertion();
+        // 2. 루트 정리 후 재삽입 실행
+        shrinkRoot();
+        reinsertOrphans(orphans);
+    }
+
+    // 자식이 하나뿐인 내부 루트는 그 자식으로 내리고, 비었으면 빈 리프로 바꾼다
+    private void shrinkRoot() {
+        while (!root.isLeaf && root.children.size() == 1) {
+            root = root.children.get(0);
+            root.parent = null;
+        }
+        if (!root.isLeaf && root.children.isEmpty()) {
+            root = RTreeNode.createLeaf();
+        }
     }
 
     /**
-     * @brief CondenseTree에서 수집된 Point 엔트리들을 트리에 다시 삽입합니다.
+     * @brief Condense Tree에서 떼어낸 노드들의 엔트리를 원래 레벨에 다시 넣습니다.
+     * 내부 노드의 자식 서브트리는 통째로 같은 높이에 매달고 (루트가 그만큼 높지 않으면 점으로 풀어서),
+     * 리프의 점들은 모아서 한 번의 batch 삽입으로 넣는다. 시각화는 부르는 쪽에서 한 번만 갱신한다.
      */
-    private void performReinsertion() {
-        if (reinsertPoints.isEmpty()) return;
-
-        List<Point> pointsToReinsert = new ArrayList<>(reinsertPoints);
-        reinsertPoints.clear();
-
-        for (Point p : pointsToReinsert) {
-            add(p); // add 함수를 재사용하여 적절한 위치에 재삽입
+    private void reinsertOrphans(List<RTreeNode> orphans) {
+        List<Point> reinsert = new ArrayList<>();
+        for (RTreeNode orphan : orphans) {
+            if (orphan.isLeaf) {
+                reinsert.addAll(orphan.points);
+                continue;
+            }
+            for (RTreeNode child : orphan.children) {
+                int h = height(child);
+                if (h < height(root)) {
+                    reinsertedLevels.clear();
+                    insertSubtree(child, h);
+                } else {
+                    collectPoints(child, reinsert);
+                }
+            }
         }
+        // 재삽입 때 중복으로 걸리지 않게 인덱스에서 먼저 뺀다
+        unindex(reinsert);
+        insertBatch(reinsert);
     }
 
     // leaf 찾기
@@ -701,6 +1927,46 @@ public class RTreeImpl implements RTree {
         return null;
     }
 
+    // 점이 들어있는 리프: 인덱스가 있으면 해시로 바로, 없으면 MBR로 내려가며 찾는다
+    private RTreeNode lookupLeaf(Point point) {
+        if (leafIndex != null) return leafIndex.get(point.getX(), point.getY());
+        return findLeaf(root, point);
+    }
+
+    private void unindex(Collection<Point> points) {
+        if (leafIndex == null) return;
+        for (Point p : points) {
+            leafIndex.remove(p.getX(), p.getY());
+        }
+    }
+
+    /**
+     * 좌표 → 리프 해시 인덱스를 켜거나 끕니다. 켜면 지금 들어있는 점으로 인덱스를 만든다.
+     * 켜 두면 delete가 루트부터 리프를 찾지 않고 바로 리프로 가며,
+     * add의 중복 검사가 고른 리프 안이 아니라 트리 전체에 대해 정확해진다. (점당 메모리는 조금 더 든다)
+     *
+     * @param enabled
+     */
+    public void setLeafIndexEnabled(boolean enabled) {
+        if (!enabled) {
+            leafIndex = null;
+            return;
+        }
+        if (leafIndex == null) {
+            leafIndex = new PointLeafIndex(size());
+            leafIndex.rebuild(root);
+        }
+    }
+
+    public boolean isLeafIndexEnabled() {
+        return leafIndex != null;
+    }
+
+    // 같은 패키지의 트리 연산(공간 조인 등)이 노드를 직접 순회할 때 사용
+    RTreeNode getRoot() {
+        return root;
+    }
+
     // -------------------------------------------------------------------
     @Override
     public boolean isEmpty() {
@@ -710,10 +1976,37 @@ public class RTreeImpl implements RTree {
         return root.isLeaf && root.points.isEmpty();
     }
 
+    /**
+     * 모든 내부 노드에 대해 자식 MBR끼리 겹치는 면적을 더한 값을 반환합니다.
+     * 값이 작을수록 범위 검색 시 함께 방문하는 노드가 적다. (분할 전략 비교용)
+     *
+     * @return 전체 노드 overlap 면적
+     */
+    public double totalOverlap() {
+        return totalOverlap(root);
+    }
+
+    private double totalOverlap(RTreeNode node) {
+        if (node == null || node.isLeaf) return 0;
+
+        double sum = 0;
+        for (int i = 0; i < node.children.size(); i++) {
+            RTreeNode a = node.children.get(i);
+            for (int j = i + 1; j < node.children.size(); j++) {
+                RTreeNode b = node.children.get(j);
+                if (a.mbr != null && b.mbr != null) {
+                    sum += overlapArea(a.mbr, b.mbr);
+                }
+            }
+            sum += totalOverlap(a);
+        }
+        return sum;
+    }
+
     // ====================== 시각화 Helper (RTreeNode 기반) ======================
 
     // 현재 트리의 모든 Point를 수집
-    private void collectPoints(RTreeNode node, List<Point> out) {
+    private void collectPoints(RTreeNode node, Collection<Point> out) {
         if (node == null) return;
         if (node.isLeaf) {
             out.addAll(node.points);
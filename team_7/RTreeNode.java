@@ -20,7 +20,12 @@ public class RTreeNode {
     // 부모 노드를 가리키는 포인터
     RTreeNode parent;
 
-    // 최대 차수 (4-way R-tree → 한 노드에 최대 4개의 엔트리)
+    // 서브트리 집계 (점 개수, x / y 합). MBR과 함께 updateMBR에서 다시 계산된다.
+    int count;
+    double sumX, sumY;
+
+    // 기본 최대 차수 (4-way R-tree → 한 노드에 최대 4개의 엔트리)
+    // 실제 fan-out은 RTreeImpl 생성자에서 지정할 수 있다.
     public static final int MAX = 4;
 
     // 리프 노드 생성
@@ -45,7 +50,7 @@ public class RTreeNode {
         return node;
     }
 
-    // 현재 노드의 MBR을 다시 계산
+    // 현재 노드의 MBR과 서브트리 집계를 다시 계산 (내부 노드는 자식들이 이미 최신이어야 한다)
     public void updateMBR() {
         if (isLeaf) {
             updateLeafMBR();
@@ -56,6 +61,8 @@ public class RTreeNode {
 
     // 리프 노드 MBR 계산
     private void updateLeafMBR() {
+        count = 0;
+        sumX = sumY = 0;
         if (points == null || points.isEmpty()) {
             mbr = null;
             return;
@@ -71,7 +78,10 @@ public class RTreeNode {
             maxX = Math.max(maxX, p.getX());
             minY = Math.min(minY, p.getY());
             maxY = Math.max(maxY, p.getY());
+            sumX += p.getX();
+            sumY += p.getY();
         }
+        count = points.size();
 
         mbr = new Rectangle(
                 new Point(minX, minY),
@@ -81,6 +91,8 @@ public class RTreeNode {
 
     // 내부 노드 MBR 계산 (자식 MBR을 모두 포함하는 MBR)
     private void updateInternalMBR() {
+        count = 0;
+        sumX = sumY = 0;
         if (children == null || children.isEmpty()) {
             mbr = null;
             return;
@@ -107,6 +119,9 @@ public class RTreeNode {
         for (RTreeNode child : children) {
             if (child.mbr == null) continue;
             Rectangle r = child.mbr;
+            count += child.count;
+            sumX += child.sumX;
+            sumY += child.sumY;
 
             minX = Math.min(minX, r.getLeftTop().getX());
             maxX = Math.max(maxX, r.getRightBottom().getX());
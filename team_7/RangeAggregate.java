@@ -0,0 +1,44 @@
+package org.dfpl.dbp.rtree.team_7;
+
+/**
+ * 범위 집계 결과. 범위 안 Point들의 개수, x / y 합, 그리고 그 점들을 감싸는 최소 사각형.
+ * 점이 하나도 없으면 count는 0이고 bounds / centroid는 null이다.
+ */
+public class RangeAggregate {
+    private final long count;
+    private final double sumX;
+    private final double sumY;
+    private final Rectangle bounds;
+
+    public RangeAggregate(long count, double sumX, double sumY, Rectangle bounds) {
+        this.count = count;
+        this.sumX = sumX;
+        this.sumY = sumY;
+        this.bounds = bounds;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSumX() {
+        return sumX;
+    }
+
+    public double getSumY() {
+        return sumY;
+    }
+
+    public Rectangle getBounds() {
+        return bounds;
+    }
+
+    public Point getCentroid() {
+        return count == 0 ? null : new Point(sumX / count, sumY / count);
+    }
+
+    @Override
+    public String toString() {
+        return "RangeAggregate [count=" + count + ", centroid=" + getCentroid() + ", bounds=" + bounds + "]";
+    }
+}
@@ -0,0 +1,41 @@
+package org.dfpl.dbp.rtree.team_7;
+
+import java.util.Iterator;
+
+/**
+ * 검색만 할 수 있는 R-tree (파일을 매핑해 여는 MappedRTree 등).
+ * 바꿀 수 없는 인덱스가 RTree의 add / delete를 예외로 막는 대신, 질의 메서드만 가진 이 타입을 구현한다.
+ */
+public interface ReadOnlyRTree {
+
+    /**
+     * rectangle 범위내에 있는 Point들을 iterator로 반환합니다. (경계 포함)
+     *
+     * @param rectangle
+     * @return iterator<Point>
+     */
+    public Iterator<Point> search(Rectangle rectangle);
+
+    /**
+     * source로 부터 가까운 최대 maxCount개의 Point들을 가까운 순서대로 반환합니다.
+     *
+     * @param source
+     * @param maxCount
+     * @return iterator<Point>
+     */
+    public Iterator<Point> nearest(Point source, int maxCount);
+
+    /**
+     * Point가 하나도 없다면 true를 반환한다.
+     *
+     * @return
+     */
+    public boolean isEmpty();
+
+    /**
+     * Point 개수를 반환한다.
+     *
+     * @return
+     */
+    public long size();
+}
@@ -46,6 +46,21 @@ public class Rectangle {
                 p.getY() <= rightBottom.getY());
     }
 
+    // 다른 Rectangle이 이 Rectangle 안에 통째로 들어오는지 확인 (경계 포함)
+    public boolean contains(Rectangle other) {
+        return other.leftTop.getX() >= this.leftTop.getX() &&
+                other.rightBottom.getX() <= this.rightBottom.getX() &&
+                other.leftTop.getY() >= this.leftTop.getY() &&
+                other.rightBottom.getY() <= this.rightBottom.getY();
+    }
+
+    // 점에서 이 Rectangle까지의 최소 거리 (안에 있으면 0). KNN에서 노드 / 엔트리의 하한으로 사용
+    public double minDistance(Point p) {
+        double dx = Math.max(0, Math.max(leftTop.getX() - p.getX(), p.getX() - rightBottom.getX()));
+        double dy = Math.max(0, Math.max(leftTop.getY() - p.getY(), p.getY() - rightBottom.getY()));
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
     // 두 Rectangle이 서로 겹치는지 확인
     public boolean intersects(Rectangle other) {
         return !(other.rightBottom.getX() < this.leftTop.getX() ||   // 오른쪽 < 왼쪽
@@ -0,0 +1,62 @@
+package org.dfpl.dbp.rtree.team_7;
+
+/**
+ * RectangleRTree에 들어가는 엔트리. 건물 footprint나 선형 객체의 bounding box 같은 사각형과,
+ * 원래 객체를 가리키는 payload id (없으면 NO_ID).
+ * 같은 사각형이라도 id가 다르면 서로 다른 엔트리다.
+ */
+public class RectangleEntry {
+
+    public static final long NO_ID = -1;
+
+    private final Rectangle rectangle;
+    private final long id;
+
+    public RectangleEntry(Rectangle rectangle) {
+        this(rectangle, NO_ID);
+    }
+
+    public RectangleEntry(Rectangle rectangle, long id) {
+        if (rectangle == null) {
+            throw new IllegalArgumentException("rectangle must not be null");
+        }
+        this.rectangle = rectangle;
+        this.id = id;
+    }
+
+    public Rectangle getRectangle() {
+        return rectangle;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public boolean hasId() {
+        return id != NO_ID;
+    }
+
+    @Override
+    public String toString() {
+        return "RectangleEntry [rectangle=" + rectangle + ", id=" + id + "]";
+    }
+
+    // Rectangle은 equals가 없으므로 좌표로 비교한다
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RectangleEntry other = (RectangleEntry) o;
+        return id == other.id
+                && rectangle.getLeftTop().equals(other.rectangle.getLeftTop())
+                && rectangle.getRightBottom().equals(other.rectangle.getRightBottom());
+    }
+
+    @Override
+    public int hashCode() {
+        int h = Long.hashCode(id);
+        h = 31 * h + rectangle.getLeftTop().hashCode();
+        h = 31 * h + rectangle.getRightBottom().hashCode();
+        return h;
+    }
+}
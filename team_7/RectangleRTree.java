@@ -0,0 +1,484 @@
+package org.dfpl.dbp.rtree.team_7;
+
+import java.util.*;
+
+/**
+ * 점이 아니라 사각형(크기가 있는 객체)을 엔트리로 갖는 R-tree.
+ *
+ * 건물 footprint, 선형 객체의 bounding box 등을 점으로 쪼개지 않고 사각형 하나(RectangleEntry)로 넣는다.
+ * 엔트리에는 원래 객체를 찾아갈 payload id를 붙일 수 있다.
+ * 구조는 RTreeImpl과 같은 Guttman R-tree이고 (면적 확장량으로 리프 선택, SplitPolicy로 분할,
+ * Condense Tree에서 떼어낸 엔트리는 원래 레벨에 재삽입), 리프 엔트리만 Point 대신 RectangleEntry다.
+ *
+ * 범위 검색은 SpatialRelation(INTERSECTS / CONTAINS / WITHIN)으로 관계를 고르고,
+ * nearest는 점에서 각 사각형까지의 최소 거리(Rectangle.minDistance, 안에 있으면 0) 순서로 돌려준다.
+ * 좌표와 id가 모두 같은 엔트리는 한 번만 들어간다.
+ */
+public class RectangleRTree {
+
+    private final int maxEntries;
+    private final int minEntries;
+    private final SplitPolicy splitPolicy;
+
+    private Node root;
+    private int size;
+
+    // 트리 구조가 바뀔 때마다 증가 (search iterator가 순회 중 변경을 감지하는 데 사용)
+    private int modCount;
+
+    public RectangleRTree() {
+        this(RTreeNode.MAX);
+    }
+
+    public RectangleRTree(int maxEntries) {
+        this(maxEntries, maxEntries / 2);
+    }
+
+    public RectangleRTree(int maxEntries, int minEntries) {
+        this(maxEntries, minEntries, new QuadraticSplitPolicy());
+    }
+
+    public RectangleRTree(int maxEntries, int minEntries, SplitPolicy splitPolicy) {
+        if (maxEntries < 2) {
+            throw new IllegalArgumentException("maxEntries must be at least 2: " + maxEntries);
+        }
+        if (minEntries < 1 || minEntries > maxEntries / 2) {
+            throw new IllegalArgumentException("minEntries must be in [1, maxEntries / 2]: " + minEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.minEntries = minEntries;
+        this.splitPolicy = splitPolicy;
+        this.root = Node.leaf();
+    }
+
+    // ======================================================================
+    //  Node
+
+    static final class Node {
+
+        boolean isLeaf;
+        List<RectangleEntry> entries;   // 리프
+        List<Node> children;            // 내부 노드
+        Rectangle mbr;
+        Node parent;
+
+        static Node leaf() {
+            Node node = new Node();
+            node.isLeaf = true;
+            node.entries = new ArrayList<>();
+            return node;
+        }
+
+        static Node internal() {
+            Node node = new Node();
+            node.isLeaf = false;
+            node.children = new ArrayList<>();
+            return node;
+        }
+
+        int count() {
+            return isLeaf ? entries.size() : children.size();
+        }
+
+        void updateMBR() {
+            double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+            int n = count();
+            for (int i = 0; i < n; i++) {
+                Rectangle r = isLeaf ? entries.get(i).getRectangle() : children.get(i).mbr;
+                minX = Math.min(minX, r.getLeftTop().getX());
+                minY = Math.min(minY, r.getLeftTop().getY());
+                maxX = Math.max(maxX, r.getRightBottom().getX());
+                maxY = Math.max(maxY, r.getRightBottom().getY());
+            }
+            mbr = n == 0 ? null : new Rectangle(new Point(minX, minY), new Point(maxX, maxY));
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // ======================================================================
+    //  Insert
+
+    public void add(Rectangle rectangle) {
+        add(new RectangleEntry(rectangle));
+    }
+
+    public void add(Rectangle rectangle, long id) {
+        add(new RectangleEntry(rectangle, id));
+    }
+
+    /**
+     * 엔트리를 추가합니다. 좌표와 id가 모두 같은 엔트리가 이미 있으면 추가하지 않습니다.
+     *
+     * @param entry
+     */
+    public void add(RectangleEntry entry) {
+        if (entry == null) return;
+        if (findLeaf(root, entry) != null) return;
+
+        Node leaf = chooseSubtree(entry.getRectangle(), 0);
+        leaf.entries.add(entry);
+        size++;
+        modCount++;
+        adjustMBR(leaf);
+
+        if (leaf.entries.size() > maxEntries) {
+            split(leaf);
+        }
+    }
+
+    // 루트에서 내려가며 r을 넣을 targetLevel(리프 = 0) 높이의 노드를 면적 확장량 기준으로 고른다
+    private Node chooseSubtree(Rectangle r, int targetLevel) {
+        Node node = root;
+        int level = height(node);
+        while (!node.isLeaf && level > targetLevel) {
+            Node best = null;
+            double bestEnlargement = Double.POSITIVE_INFINITY;
+            double bestArea = Double.POSITIVE_INFINITY;
+            for (Node c : node.children) {
+                double enlargement = c.mbr.enlargement(r);
+                double area = c.mbr.area();
+                if (enlargement < bestEnlargement || (enlargement == bestEnlargement && area < bestArea)) {
+                    best = c;
+                    bestEnlargement = enlargement;
+                    bestArea = area;
+                }
+            }
+            node = best;
+            level--;
+        }
+        return node;
+    }
+
+    private int height(Node node) {
+        int h = 0;
+        while (!node.isLeaf && !node.children.isEmpty()) {
+            node = node.children.get(0);
+            h++;
+        }
+        return h;
+    }
+
+    private void adjustMBR(Node node) {
+        for (Node n = node; n != null; n = n.parent) {
+            n.updateMBR();
+        }
+    }
+
+    // 넘친 노드를 둘로 나누고, 부모가 넘치면 위로 반복
+    private void split(Node node) {
+        Node sibling;
+        if (node.isLeaf) {
+            List<List<RectangleEntry>> groups = splitPolicy.split(
+                    new ArrayList<>(node.entries), RectangleEntry::getRectangle, minEntries);
+            sibling = Node.leaf();
+            node.entries.clear();
+            node.entries.addAll(groups.get(0));
+            sibling.entries.addAll(groups.get(1));
+        } else {
+            List<List<Node>> groups = splitPolicy.split(new ArrayList<>(node.children), c -> c.mbr, minEntries);
+            sibling = Node.internal();
+            node.children.clear();
+            for (Node c : groups.get(0)) {
+                node.children.add(c);
+                c.parent = node;
+            }
+            for (Node c : groups.get(1)) {
+                sibling.children.add(c);
+                c.parent = sibling;
+            }
+        }
+        node.updateMBR();
+        sibling.updateMBR();
+
+        Node parent = node.parent;
+        if (parent == null) {
+            Node newRoot = Node.internal();
+            newRoot.children.add(node);
+            newRoot.children.add(sibling);
+            node.parent = newRoot;
+            sibling.parent = newRoot;
+            newRoot.updateMBR();
+            root = newRoot;
+            return;
+        }
+
+        parent.children.add(sibling);
+        sibling.parent = parent;
+        if (parent.children.size() > maxEntries) {
+            split(parent);
+        } else {
+            adjustMBR(parent);
+        }
+    }
+
+    // 서브트리 하나를 원래 높이(level)를 유지한 채로 다시 매단다
+    private void insertSubtree(Node subtree, int level) {
+        Node target = chooseSubtree(subtree.mbr, level + 1);
+        target.children.add(subtree);
+        subtree.parent = target;
+        adjustMBR(target);
+
+        if (target.children.size() > maxEntries) {
+            split(target);
+        }
+    }
+
+    // ======================================================================
+    //  Delete (Condense Tree: 모자란 노드를 떼어내고 엔트리를 원래 레벨에 재삽입)
+
+    public void delete(Rectangle rectangle) {
+        delete(new RectangleEntry(rectangle));
+    }
+
+    public void delete(Rectangle rectangle, long id) {
+        delete(new RectangleEntry(rectangle, id));
+    }
+
+    /**
+     * 좌표와 id가 모두 같은 엔트리를 지웁니다. 없으면 아무것도 하지 않습니다.
+     *
+     * @param entry
+     */
+    public void delete(RectangleEntry entry) {
+        if (entry == null) return;
+
+        Node leaf = findLeaf(root, entry);
+        if (leaf == null) return;
+
+        leaf.entries.remove(entry);
+        size--;
+        modCount++;
+
+        // 1. 리프에서 루트까지 올라가며 모자란 노드는 떼어내고, 남는 노드는 MBR 재계산
+        List<Node> orphans = new ArrayList<>();
+        for (Node n = leaf; n != root; ) {
+            Node parent = n.parent;
+            if (n.count() < minEntries) {
+                parent.children.remove(n);
+                orphans.add(n);
+            } else {
+                n.updateMBR();
+            }
+            n = parent;
+        }
+        root.updateMBR();
+
+        // 2. 루트 정리
+        while (!root.isLeaf && root.children.size() == 1) {
+            root = root.children.get(0);
+            root.parent = null;
+        }
+        if (!root.isLeaf && root.children.isEmpty()) {
+            root = Node.leaf();
+        }
+
+        // 3. 떼어낸 노드 재삽입 (내부 노드의 자식은 높이를 유지해 매달고, 그럴 수 없으면 엔트리로 풀어서)
+        List<RectangleEntry> reinsert = new ArrayList<>();
+        for (Node orphan : orphans) {
+            if (orphan.isLeaf) {
+                reinsert.addAll(orphan.entries);
+                continue;
+            }
+            for (Node child : orphan.children) {
+                int h = height(child);
+                if (h < height(root)) {
+                    insertSubtree(child, h);
+                } else {
+                    collectEntries(child, reinsert);
+                }
+            }
+        }
+        for (RectangleEntry e : reinsert) {
+            Node target = chooseSubtree(e.getRectangle(), 0);
+            target.entries.add(e);
+            adjustMBR(target);
+            if (target.entries.size() > maxEntries) {
+                split(target);
+            }
+        }
+    }
+
+    // entry를 가진 리프: MBR이 entry 사각형을 포함하는 자식만 내려간다
+    private Node findLeaf(Node node, RectangleEntry entry) {
+        if (node.mbr == null || !node.mbr.contains(entry.getRectangle())) return null;
+
+        if (node.isLeaf) {
+            return node.entries.contains(entry) ? node : null;
+        }
+        for (Node child : node.children) {
+            Node found = findLeaf(child, entry);
+            if (found != null) return found;
+        }
+        return null;
+    }
+
+    private void collectEntries(Node node, List<RectangleEntry> out) {
+        if (node.isLeaf) {
+            out.addAll(node.entries);
+            return;
+        }
+        for (Node child : node.children) {
+            collectEntries(child, out);
+        }
+    }
+
+    // ======================================================================
+    //  Search / KNN
+
+    /**
+     * rectangle과 겹치는 엔트리들을 iterator로 반환합니다. (경계 포함)
+     *
+     * @param rectangle
+     * @return iterator<RectangleEntry>
+     */
+    public Iterator<RectangleEntry> search(Rectangle rectangle) {
+        return search(rectangle, SpatialRelation.INTERSECTS);
+    }
+
+    /**
+     * rectangle과 relation 관계에 있는 엔트리들을 iterator로 반환합니다.
+     *
+     * @param rectangle
+     * @param relation  INTERSECTS / CONTAINS (엔트리가 rectangle을 포함) / WITHIN (엔트리가 rectangle 안)
+     * @return iterator<RectangleEntry>
+     */
+    public Iterator<RectangleEntry> search(Rectangle rectangle, SpatialRelation relation) {
+        if (relation == null) {
+            throw new IllegalArgumentException("relation must not be null");
+        }
+        if (rectangle == null || size == 0) return Collections.emptyIterator();
+        return new SearchIterator(rectangle, relation);
+    }
+
+    /**
+     * source에서 가까운 최대 maxCount개의 엔트리를 가까운 순서대로 반환합니다.
+     * 거리는 source에서 엔트리 사각형까지의 최소 거리이며, source를 포함하는 사각형은 거리 0이다.
+     *
+     * @param source
+     * @param maxCount
+     * @return iterator<RectangleEntry>
+     */
+    public Iterator<RectangleEntry> nearest(Point source, int maxCount) {
+        if (source == null || size == 0 || maxCount <= 0) return Collections.emptyIterator();
+
+        // 노드와 엔트리를 같은 힙에 넣는다. 노드까지의 거리는 그 아래 모든 엔트리 거리의 하한이다.
+        DistanceHeap heap = new DistanceHeap();
+        heap.push(root.mbr.minDistance(source), root);
+
+        List<RectangleEntry> result = new ArrayList<>(Math.min(maxCount, size));
+        while (!heap.isEmpty() && result.size() < maxCount) {
+            Object top = heap.pop();
+            if (top instanceof RectangleEntry) {
+                result.add((RectangleEntry) top);
+                continue;
+            }
+
+            Node node = (Node) top;
+            if (node.isLeaf) {
+                for (RectangleEntry e : node.entries) {
+                    heap.push(e.getRectangle().minDistance(source), e);
+                }
+            } else {
+                for (Node c : node.children) {
+                    heap.push(c.mbr.minDistance(source), c);
+                }
+            }
+        }
+        return result.iterator();
+    }
+
+    // 범위 검색 lazy iterator. 순회 도중 트리가 바뀌면 ConcurrentModificationException.
+    private class SearchIterator implements Iterator<RectangleEntry> {
+
+        private final Deque<Node> nodeStack = new ArrayDeque<>();
+        private final Deque<Integer> indexStack = new ArrayDeque<>();
+        private final Rectangle query;
+        private final SpatialRelation relation;
+        private final int expectedModCount;
+        private RectangleEntry next;
+
+        SearchIterator(Rectangle query, SpatialRelation relation) {
+            this.query = query;
+            this.relation = relation;
+            this.expectedModCount = modCount;
+
+            if (relation.mayMatchInside(root.mbr, query)) {
+                nodeStack.push(root);
+                indexStack.push(0);
+            }
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (!nodeStack.isEmpty()) {
+                Node node = nodeStack.peek();
+                int i = indexStack.pop();
+
+                if (node.isLeaf) {
+                    while (i < node.entries.size()) {
+                        RectangleEntry e = node.entries.get(i++);
+                        if (relation.matches(e.getRectangle(), query)) {
+                            indexStack.push(i);
+                            next = e;
+                            return;
+                        }
+                    }
+                    nodeStack.pop();
+                    continue;
+                }
+
+                Node child = null;
+                while (i < node.children.size()) {
+                    Node c = node.children.get(i++);
+                    if (relation.mayMatchInside(c.mbr, query)) {
+                        child = c;
+                        break;
+                    }
+                }
+                indexStack.push(i);
+                if (child == null) {
+                    nodeStack.pop();
+                    indexStack.pop();
+                    continue;
+                }
+                nodeStack.push(child);
+                indexStack.push(0);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            checkForComodification();
+            return next != null;
+        }
+
+        @Override
+        public RectangleEntry next() {
+            checkForComodification();
+            if (next == null) throw new NoSuchElementException();
+            RectangleEntry e = next;
+            advance();
+            return e;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    // 같은 패키지의 검증 / 도구용
+    Node getRoot() {
+        return root;
+    }
+}
@@ -0,0 +1,512 @@
+package org.dfpl.dbp.rtree.team_7;
+
+import java.util.*;
+
+/**
+ * 변경할 때마다 새 root를 만들어 내놓는 copy-on-write(path copying) R-tree.
+ *
+ * 노드는 한 번 만들어지면 바뀌지 않는다. add / delete는 root에서 바뀌는 노드까지의 경로만 복사해
+ * 새 버전을 만들고, 바뀌지 않은 서브트리는 이전 버전과 공유한다. 완성된 버전은 volatile 필드 하나로 공개한다.
+ *
+ * 읽기는 snapshot()으로 그 순간의 버전을 잡아서 잠금 없이 수행한다. 뒤에서 분할이나 Condense Tree가
+ * 새 버전을 만들고 있어도 잡아 둔 버전은 그대로이므로 항상 일관된 트리를 본다.
+ * 어떤 Snapshot도 가리키지 않는 옛 버전의 노드는 GC가 회수한다.
+ *
+ * 쓰기끼리는 writeLock으로 한 번에 하나씩 수행한다.
+ */
+public class SnapshotRTree implements RTree {
+
+    private final int maxEntries;
+    private final int minEntries;
+    private final SplitPolicy splitPolicy;
+
+    // 쓰기 직렬화용
+    private final Object writeLock = new Object();
+
+    // 현재 공개된 버전
+    private volatile Snapshot current;
+
+    public SnapshotRTree() {
+        this(RTreeNode.MAX);
+    }
+
+    public SnapshotRTree(int maxEntries) {
+        this(maxEntries, maxEntries / 2);
+    }
+
+    public SnapshotRTree(int maxEntries, int minEntries) {
+        this(maxEntries, minEntries, new LinearSplitPolicy());
+    }
+
+    public SnapshotRTree(int maxEntries, int minEntries, SplitPolicy splitPolicy) {
+        if (maxEntries < 2) {
+            throw new IllegalArgumentException("maxEntries must be at least 2: " + maxEntries);
+        }
+        if (minEntries < 1 || minEntries > maxEntries / 2) {
+            throw new IllegalArgumentException("minEntries must be in [1, maxEntries / 2]: " + minEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.minEntries = minEntries;
+        this.splitPolicy = splitPolicy;
+        this.current = new Snapshot(Node.leaf(new Point[0]), 0, 0);
+    }
+
+    // ======================================================================
+    //  Node (불변)
+
+    static final class Node {
+
+        final int level;   // 리프 = 0
+        final Point[] points;
+        final Node[] children;
+        final double minX, minY, maxX, maxY;
+
+        private Node(int level, Point[] points, Node[] children,
+                     double minX, double minY, double maxX, double maxY) {
+            this.level = level;
+            this.points = points;
+            this.children = children;
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+        }
+
+        static Node leaf(Point[] points) {
+            double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+            for (Point p : points) {
+                minX = Math.min(minX, p.getX());
+                minY = Math.min(minY, p.getY());
+                maxX = Math.max(maxX, p.getX());
+                maxY = Math.max(maxY, p.getY());
+            }
+            return new Node(0, points, null, minX, minY, maxX, maxY);
+        }
+
+        static Node internal(int level, Node[] children) {
+            double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+            for (Node c : children) {
+                minX = Math.min(minX, c.minX);
+                minY = Math.min(minY, c.minY);
+                maxX = Math.max(maxX, c.maxX);
+                maxY = Math.max(maxY, c.maxY);
+            }
+            return new Node(level, null, children, minX, minY, maxX, maxY);
+        }
+
+        boolean isLeaf() {
+            return level == 0;
+        }
+
+        int count() {
+            return isLeaf() ? points.length : children.length;
+        }
+
+        boolean contains(double x, double y) {
+            return x >= minX && x <= maxX && y >= minY && y <= maxY;
+        }
+
+        boolean intersects(double qMinX, double qMinY, double qMaxX, double qMaxY) {
+            return minX <= qMaxX && maxX >= qMinX && minY <= qMaxY && maxY >= qMinY;
+        }
+
+        double minDistSq(double px, double py) {
+            double dx = px < minX ? minX - px : (px > maxX ? px - maxX : 0);
+            double dy = py < minY ? minY - py : (py > maxY ? py - maxY : 0);
+            return dx * dx + dy * dy;
+        }
+
+        Rectangle rect() {
+            return new Rectangle(new Point(minX, minY), new Point(maxX, maxY));
+        }
+    }
+
+    // ======================================================================
+    //  Snapshot (한 버전의 읽기 전용 뷰)
+
+    /**
+     * 특정 시점의 트리. 잠금 없이 읽을 수 있고, 이후의 변경은 보이지 않는다.
+     */
+    public static final class Snapshot {
+
+        private final Node root;
+        private final int size;
+        private final long version;
+
+        private Snapshot(Node root, int size, long version) {
+            this.root = root;
+            this.size = size;
+            this.version = version;
+        }
+
+        public long version() {
+            return version;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public Iterator<Point> search(Rectangle rectangle) {
+            if (size == 0) return Collections.emptyIterator();
+            return new SearchIterator(root, rectangle);
+        }
+
+        public Iterator<Point> nearest(Point source, int maxCount) {
+            if (source == null || size == 0 || maxCount <= 0) return Collections.emptyIterator();
+
+            double sx = source.getX();
+            double sy = source.getY();
+
+            DistanceHeap heap = new DistanceHeap();
+            heap.push(root.minDistSq(sx, sy), root);
+
+            List<Point> result = new ArrayList<>(Math.min(maxCount, size));
+            while (!heap.isEmpty() && result.size() < maxCount) {
+                Object top = heap.pop();
+                if (top instanceof Point) {
+                    result.add((Point) top);
+                    continue;
+                }
+
+                Node node = (Node) top;
+                if (node.isLeaf()) {
+                    for (Point p : node.points) {
+                        double dx = p.getX() - sx;
+                        double dy = p.getY() - sy;
+                        heap.push(dx * dx + dy * dy, p);
+                    }
+                } else {
+                    for (Node c : node.children) {
+                        heap.push(c.minDistSq(sx, sy), c);
+                    }
+                }
+            }
+            return result.iterator();
+        }
+
+        boolean contains(double x, double y) {
+            return contains(root, x, y);
+        }
+
+        private static boolean contains(Node node, double x, double y) {
+            if (!node.contains(x, y)) return false;
+            if (node.isLeaf()) {
+                for (Point p : node.points) {
+                    if (p.getX() == x && p.getY() == y) return true;
+                }
+                return false;
+            }
+            for (Node c : node.children) {
+                if (contains(c, x, y)) return true;
+            }
+            return false;
+        }
+    }
+
+    // 불변 트리 위의 lazy 범위 검색 (노드가 바뀌지 않으므로 modCount 검사가 필요 없다)
+    private static final class SearchIterator implements Iterator<Point> {
+
+        private final Deque<Node> nodeStack = new ArrayDeque<>();
+        private final Deque<Integer> indexStack = new ArrayDeque<>();
+        private final double qMinX, qMinY, qMaxX, qMaxY;
+        private Point next;
+
+        SearchIterator(Node root, Rectangle query) {
+            qMinX = query.getLeftTop().getX();
+            qMinY = query.getLeftTop().getY();
+            qMaxX = query.getRightBottom().getX();
+            qMaxY = query.getRightBottom().getY();
+
+            if (root.intersects(qMinX, qMinY, qMaxX, qMaxY)) {
+                nodeStack.push(root);
+                indexStack.push(0);
+            }
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (!nodeStack.isEmpty()) {
+                Node node = nodeStack.peek();
+                int i = indexStack.pop();
+
+                if (node.isLeaf()) {
+                    while (i < node.points.length) {
+                        Point p = node.points[i++];
+                        double x = p.getX();
+                        double y = p.getY();
+                        if (x >= qMinX && x <= qMaxX && y >= qMinY && y <= qMaxY) {
+                            indexStack.push(i);
+                            next = p;
+                            return;
+                        }
+                    }
+                    nodeStack.pop();
+                    continue;
+                }
+
+                Node child = null;
+                while (i < node.children.length) {
+                    Node c = node.children[i++];
+                    if (c.intersects(qMinX, qMinY, qMaxX, qMaxY)) {
+                        child = c;
+                        break;
+                    }
+                }
+                indexStack.push(i);
+                if (child == null) {
+                    nodeStack.pop();
+                    indexStack.pop();
+                    continue;
+                }
+                nodeStack.push(child);
+                indexStack.push(0);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Point next() {
+            if (next == null) throw new NoSuchElementException();
+            Point p = next;
+            advance();
+            return p;
+        }
+    }
+
+    /**
+     * 현재 버전을 잡는다. 반환된 Snapshot은 이후 add / delete의 영향을 받지 않는다.
+     *
+     * @return 현재 시점의 Snapshot
+     */
+    public Snapshot snapshot() {
+        return current;
+    }
+
+    // ======================================================================
+    //  Read (현재 버전에 대해 잠금 없이)
+
+    @Override
+    public Iterator<Point> search(Rectangle rectangle) {
+        return current.search(rectangle);
+    }
+
+    @Override
+    public Iterator<Point> nearest(Point source, int maxCount) {
+        return current.nearest(source, maxCount);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return current.isEmpty();
+    }
+
+    // ======================================================================
+    //  Write (경로 복사 후 새 버전 공개)
+
+    @Override
+    public void add(Point point) {
+        if (point == null) return;
+        addAll(Collections.singletonList(point));
+    }
+
+    /**
+     * batch 전체를 반영한 버전 하나만 공개한다. 읽는 쪽은 batch 전이나 후만 보게 된다.
+     *
+     * @param points
+     */
+    @Override
+    public void addAll(Collection<Point> points) {
+        synchronized (writeLock) {
+            Snapshot base = current;
+            Snapshot s = base;
+            for (Point p : points) {
+                if (p == null || s.contains(p.getX(), p.getY())) continue;
+                s = new Snapshot(insert(s.root, p, null, 0), s.size + 1, base.version + 1);
+            }
+            if (s != base) current = s;
+        }
+    }
+
+    @Override
+    public void delete(Point point) {
+        if (point == null) return;
+        deleteAll(Collections.singletonList(point));
+    }
+
+    @Override
+    public void deleteAll(Collection<Point> points) {
+        synchronized (writeLock) {
+            Snapshot base = current;
+            Snapshot s = base;
+            for (Point p : points) {
+                if (p == null || s.size == 0) continue;
+                Node root = delete(s.root, p);
+                if (root != s.root) s = new Snapshot(root, s.size - 1, base.version + 1);
+            }
+            if (s != base) current = s;
+        }
+    }
+
+    // --------------------------- insert ---------------------------
+
+    // 점(targetLevel 0) 또는 서브트리를 넣은 새 root
+    private Node insert(Node root, Point point, Node subtree, int targetLevel) {
+        Node[] result = insert(root, point, subtree, targetLevel, entryBox(point, subtree));
+        if (result.length == 1) return result[0];
+        return Node.internal(root.level + 1, result);
+    }
+
+    // node에 넣은 결과로 바뀐 노드 (분할되면 두 개)
+    private Node[] insert(Node node, Point point, Node subtree, int targetLevel, double[] box) {
+        if (node.level == targetLevel) {
+            if (node.isLeaf()) {
+                Point[] points = Arrays.copyOf(node.points, node.points.length + 1);
+                points[points.length - 1] = point;
+                return points.length > maxEntries ? splitLeaf(points) : new Node[]{Node.leaf(points)};
+            }
+            Node[] children = Arrays.copyOf(node.children, node.children.length + 1);
+            children[children.length - 1] = subtree;
+            return children.length > maxEntries ? splitInternal(node.level, children) : new Node[]{Node.internal(node.level, children)};
+        }
+
+        int i = chooseChild(node, box);
+        Node[] replaced = insert(node.children[i], point, subtree, targetLevel, box);
+
+        Node[] children = Arrays.copyOf(node.children, node.children.length + replaced.length - 1);
+        children[i] = replaced[0];
+        if (replaced.length == 2) children[children.length - 1] = replaced[1];
+        return children.length > maxEntries ? splitInternal(node.level, children) : new Node[]{Node.internal(node.level, children)};
+    }
+
+    private static double[] entryBox(Point point, Node subtree) {
+        if (point != null) {
+            return new double[]{point.getX(), point.getY(), point.getX(), point.getY()};
+        }
+        return new double[]{subtree.minX, subtree.minY, subtree.maxX, subtree.maxY};
+    }
+
+    // 면적 확장량이 최소인 자식 (동률이면 면적이 작은 쪽)
+    private static int chooseChild(Node node, double[] box) {
+        int best = 0;
+        double bestExpand = Double.MAX_VALUE;
+        double bestArea = Double.MAX_VALUE;
+
+        for (int i = 0; i < node.children.length; i++) {
+            Node c = node.children[i];
+            double area = (c.maxX - c.minX) * (c.maxY - c.minY);
+            double expand = (Math.max(c.maxX, box[2]) - Math.min(c.minX, box[0]))
+                    * (Math.max(c.maxY, box[3]) - Math.min(c.minY, box[1])) - area;
+            if (expand < bestExpand || (expand == bestExpand && area < bestArea)) {
+                best = i;
+                bestExpand = expand;
+                bestArea = area;
+            }
+        }
+        return best;
+    }
+
+    private Node[] splitLeaf(Point[] points) {
+        List<List<Point>> groups = splitPolicy.split(Arrays.asList(points), p -> new Rectangle(p, p), minEntries);
+        return new Node[]{
+                Node.leaf(groups.get(0).toArray(new Point[0])),
+                Node.leaf(groups.get(1).toArray(new Point[0]))
+        };
+    }
+
+    private Node[] splitInternal(int level, Node[] children) {
+        List<List<Node>> groups = splitPolicy.split(Arrays.asList(children), Node::rect, minEntries);
+        return new Node[]{
+                Node.internal(level, groups.get(0).toArray(new Node[0])),
+                Node.internal(level, groups.get(1).toArray(new Node[0]))
+        };
+    }
+
+    // --------------------------- delete ---------------------------
+
+    // 점을 지운 새 root (없으면 root를 그대로 반환)
+    private Node delete(Node root, Point point) {
+        List<Node> orphans = new ArrayList<>();
+        Node newRoot = delete(root, point.getX(), point.getY(), orphans);
+        if (newRoot == root) return root;
+
+        if (!newRoot.isLeaf() && newRoot.count() == 0) {
+            newRoot = Node.leaf(new Point[0]);
+        }
+
+        // 떼어낸 노드의 엔트리를 원래 높이에 다시 넣는다 (옛 버전과 공유하는 불변 노드라 그대로 매달 수 있다)
+        for (Node orphan : orphans) {
+            newRoot = reinsert(newRoot, orphan);
+        }
+
+        while (!newRoot.isLeaf() && newRoot.count() == 1) {
+            newRoot = newRoot.children[0];
+        }
+        return newRoot;
+    }
+
+    // Condense Tree: 지운 뒤 모자란 자식은 빼고 orphans에 모은다. 점이 없으면 node를 그대로 반환
+    private Node delete(Node node, double x, double y, List<Node> orphans) {
+        if (node.isLeaf()) {
+            for (int i = 0; i < node.points.length; i++) {
+                Point p = node.points[i];
+                if (p.getX() == x && p.getY() == y) {
+                    Point[] points = new Point[node.points.length - 1];
+                    System.arraycopy(node.points, 0, points, 0, i);
+                    System.arraycopy(node.points, i + 1, points, i, points.length - i);
+                    return Node.leaf(points);
+                }
+            }
+            return node;
+        }
+
+        for (int i = 0; i < node.children.length; i++) {
+            Node child = node.children[i];
+            if (!child.contains(x, y)) continue;
+
+            Node replaced = delete(child, x, y, orphans);
+            if (replaced == child) continue;
+
+            if (replaced.count() < minEntries) {
+                orphans.add(replaced);
+                Node[] children = new Node[node.children.length - 1];
+                System.arraycopy(node.children, 0, children, 0, i);
+                System.arraycopy(node.children, i + 1, children, i, children.length - i);
+                return Node.internal(node.level, children);
+            }
+            Node[] children = node.children.clone();
+            children[i] = replaced;
+            return Node.internal(node.level, children);
+        }
+        return node;
+    }
+
+    // orphan의 엔트리들을 같은 높이에 다시 넣는다. 트리가 그만큼 높지 않으면 한 단계씩 풀어서 넣는다.
+    private Node reinsert(Node root, Node orphan) {
+        if (orphan.isLeaf()) {
+            for (Point p : orphan.points) {
+                root = insert(root, p, null, 0);
+            }
+            return root;
+        }
+        for (Node c : orphan.children) {
+            if (c.level < root.level) {
+                root = insert(root, null, c, c.level + 1);
+            } else {
+                root = reinsert(root, c);
+            }
+        }
+        return root;
+    }
+}
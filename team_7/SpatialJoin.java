@@ -0,0 +1,272 @@
+package org.dfpl.dbp.rtree.team_7;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 두 RTreeImpl 사이의 공간 조인 (synchronized traversal).
+ * - distanceJoin    : 두 점 사이의 거리가 distance 이하인 쌍
+ * - intersectionJoin: 점마다 (halfWidth, halfHeight) 크기의 영역을 두었을 때 두 영역이 겹치는 쌍
+ *                     (x 간격이 2 * halfWidth 이하이고 y 간격이 2 * halfHeight 이하)
+ *
+ * 두 트리를 동시에 내려가며 노드 쌍 (a, b)를 본다. 두 MBR 사이의 축별 간격이 이미 조건을 넘으면
+ * 그 아래의 어떤 점 쌍도 조건을 만족할 수 없으므로 쌍째로 버린다. 리프 쌍에 도달하면 점끼리 비교한다.
+ * 높이가 다르면 높은 쪽을, 같으면 MBR이 큰 쪽을 먼저 펼친다.
+ *
+ * distance(또는 영역 크기)가 0이면 두 트리에 모두 있는 점(같은 좌표)을 찾는 조인이 된다.
+ * 결과는 lazy하게 만들어지며, 조인 도중에 두 트리를 바꾸면 안 된다.
+ */
+public final class SpatialJoin {
+
+    private SpatialJoin() {
+    }
+
+    /**
+     * left의 점과 right의 점 중 거리가 distance 이하인 쌍을 하나씩 내준다.
+     *
+     * @param left
+     * @param right
+     * @param distance
+     * @return iterator<PointPair>
+     */
+    public static Iterator<PointPair> distanceJoin(RTreeImpl left, RTreeImpl right, double distance) {
+        return Spliterators.iterator(new JoinSpliterator(left.getRoot(), right.getRoot(), Condition.distance(distance)));
+    }
+
+    /**
+     * distanceJoin과 같은 결과를 Stream으로 내준다. parallel이면 노드 쌍 단위로 나눠 병렬로 처리한다.
+     *
+     * @param left
+     * @param right
+     * @param distance
+     * @param parallel
+     * @return Stream<PointPair>
+     */
+    public static Stream<PointPair> distanceJoinStream(RTreeImpl left, RTreeImpl right, double distance, boolean parallel) {
+        return StreamSupport.stream(new JoinSpliterator(left.getRoot(), right.getRoot(), Condition.distance(distance)), parallel);
+    }
+
+    /**
+     * 점마다 가로 2 * halfWidth, 세로 2 * halfHeight인 사각형 영역을 두었을 때,
+     * left 점의 영역과 right 점의 영역이 겹치는(경계 포함) 쌍을 하나씩 내준다.
+     *
+     * @param left
+     * @param right
+     * @param halfWidth
+     * @param halfHeight
+     * @return iterator<PointPair>
+     */
+    public static Iterator<PointPair> intersectionJoin(RTreeImpl left, RTreeImpl right, double halfWidth, double halfHeight) {
+        return Spliterators.iterator(new JoinSpliterator(left.getRoot(), right.getRoot(),
+                Condition.intersection(halfWidth, halfHeight)));
+    }
+
+    /**
+     * intersectionJoin과 같은 결과를 Stream으로 내준다. parallel이면 노드 쌍 단위로 나눠 병렬로 처리한다.
+     *
+     * @param left
+     * @param right
+     * @param halfWidth
+     * @param halfHeight
+     * @param parallel
+     * @return Stream<PointPair>
+     */
+    public static Stream<PointPair> intersectionJoinStream(RTreeImpl left, RTreeImpl right,
+                                                           double halfWidth, double halfHeight, boolean parallel) {
+        return StreamSupport.stream(new JoinSpliterator(left.getRoot(), right.getRoot(),
+                Condition.intersection(halfWidth, halfHeight)), parallel);
+    }
+
+    private static double checkNonNegative(String name, double value) {
+        if (value < 0 || Double.isNaN(value)) {
+            throw new IllegalArgumentException(name + " must be non-negative: " + value);
+        }
+        return value;
+    }
+
+    // ======================================================================
+    //  Join condition (두 대상 사이의 x 간격, y 간격으로 판정)
+
+    private static final class Condition {
+        final boolean intersection;
+        final double distanceSq;       // distance 조인
+        final double maxGapX, maxGapY; // intersection 조인
+
+        private Condition(boolean intersection, double distanceSq, double maxGapX, double maxGapY) {
+            this.intersection = intersection;
+            this.distanceSq = distanceSq;
+            this.maxGapX = maxGapX;
+            this.maxGapY = maxGapY;
+        }
+
+        static Condition distance(double distance) {
+            checkNonNegative("distance", distance);
+            return new Condition(false, distance * distance, 0, 0);
+        }
+
+        static Condition intersection(double halfWidth, double halfHeight) {
+            checkNonNegative("halfWidth", halfWidth);
+            checkNonNegative("halfHeight", halfHeight);
+            return new Condition(true, 0, 2 * halfWidth, 2 * halfHeight);
+        }
+
+        // MBR 쌍이면 "아래에 조건을 만족하는 쌍이 있을 수 있는가", 점 쌍이면 "조건을 만족하는가"
+        boolean accepts(double gapX, double gapY) {
+            return intersection ? gapX <= maxGapX && gapY <= maxGapY : gapX * gapX + gapY * gapY <= distanceSq;
+        }
+
+        boolean accepts(Rectangle r, Rectangle s) {
+            return accepts(Math.max(0, Math.max(r.getLeftTop().getX() - s.getRightBottom().getX(),
+                            s.getLeftTop().getX() - r.getRightBottom().getX())),
+                    Math.max(0, Math.max(r.getLeftTop().getY() - s.getRightBottom().getY(),
+                            s.getLeftTop().getY() - r.getRightBottom().getY())));
+        }
+    }
+
+    // ======================================================================
+    //  Node pair
+
+    private static final class NodePair {
+        final RTreeNode a, b;
+        final int heightA, heightB;
+
+        NodePair(RTreeNode a, int heightA, RTreeNode b, int heightB) {
+            this.a = a;
+            this.heightA = heightA;
+            this.b = b;
+            this.heightB = heightB;
+        }
+
+        boolean isLeafPair() {
+            return heightA == 0 && heightB == 0;
+        }
+    }
+
+    private static int height(RTreeNode node) {
+        int h = 0;
+        while (!node.isLeaf && !node.children.isEmpty()) {
+            node = node.children.get(0);
+            h++;
+        }
+        return h;
+    }
+
+    // ======================================================================
+    //  Traversal
+
+    private static final class JoinSpliterator implements Spliterator<PointPair> {
+
+        private final Condition condition;
+
+        // 아직 펼치지 않은 노드 쌍 (DFS 스택)
+        private final Deque<NodePair> pending = new ArrayDeque<>();
+
+        // 지금 비교 중인 리프 쌍과 위치
+        private RTreeNode leafA, leafB;
+        private int i, j;
+
+        JoinSpliterator(RTreeNode left, RTreeNode right, Condition condition) {
+            this.condition = condition;
+            if (left != null && right != null && left.mbr != null && right.mbr != null
+                    && condition.accepts(left.mbr, right.mbr)) {
+                pending.push(new NodePair(left, height(left), right, height(right)));
+            }
+        }
+
+        private JoinSpliterator(Condition condition, Collection<NodePair> pairs) {
+            this.condition = condition;
+            this.pending.addAll(pairs);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super PointPair> action) {
+            while (true) {
+                if (leafA != null) {
+                    PointPair pair = nextInLeafPair();
+                    if (pair != null) {
+                        action.accept(pair);
+                        return true;
+                    }
+                    leafA = leafB = null;
+                }
+                if (pending.isEmpty()) return false;
+
+                NodePair top = pending.pop();
+                if (top.isLeafPair()) {
+                    leafA = top.a;
+                    leafB = top.b;
+                    i = j = 0;
+                } else {
+                    expand(top, pending);
+                }
+            }
+        }
+
+        // 현재 리프 쌍에서 조건을 만족하는 다음 점 쌍
+        private PointPair nextInLeafPair() {
+            List<Point> as = leafA.points;
+            List<Point> bs = leafB.points;
+            double bMinX = leafB.mbr.getLeftTop().getX(), bMinY = leafB.mbr.getLeftTop().getY();
+            double bMaxX = leafB.mbr.getRightBottom().getX(), bMaxY = leafB.mbr.getRightBottom().getY();
+            for (; i < as.size(); i++, j = 0) {
+                Point p = as.get(i);
+                double px = p.getX(), py = p.getY();
+                // b 리프 MBR과 먼 점은 건너뛴다
+                if (!condition.accepts(Math.max(0, Math.max(bMinX - px, px - bMaxX)),
+                        Math.max(0, Math.max(bMinY - py, py - bMaxY)))) continue;
+                while (j < bs.size()) {
+                    Point q = bs.get(j++);
+                    if (condition.accepts(Math.abs(px - q.getX()), Math.abs(py - q.getY()))) {
+                        return new PointPair(p, q);
+                    }
+                }
+            }
+            return null;
+        }
+
+        // 높은 쪽(같으면 MBR이 큰 쪽) 노드를 펼쳐 살아남는 자식 쌍을 넣는다
+        private void expand(NodePair pair, Deque<NodePair> out) {
+            boolean expandA = pair.heightA > pair.heightB
+                    || (pair.heightA == pair.heightB && pair.a.mbr.area() >= pair.b.mbr.area());
+
+            if (expandA) {
+                for (RTreeNode c : pair.a.children) {
+                    if (c.mbr != null && condition.accepts(c.mbr, pair.b.mbr)) {
+                        out.push(new NodePair(c, pair.heightA - 1, pair.b, pair.heightB));
+                    }
+                }
+            } else {
+                for (RTreeNode c : pair.b.children) {
+                    if (c.mbr != null && condition.accepts(pair.a.mbr, c.mbr)) {
+                        out.push(new NodePair(pair.a, pair.heightA, c, pair.heightB - 1));
+                    }
+                }
+            }
+        }
+
+        @Override
+        public Spliterator<PointPair> trySplit() {
+            // 쌍이 하나뿐이면 펼쳐서 나눌 거리를 만든다
+            while (pending.size() == 1 && !pending.peek().isLeafPair()) {
+                expand(pending.pop(), pending);
+            }
+            if (pending.size() < 2) return null;
+
+            List<NodePair> half = new ArrayList<>();
+            for (int k = pending.size() / 2; k > 0; k--) half.add(pending.pollLast());
+            return new JoinSpliterator(condition, half);
+        }
+
+        @Override
+        public long estimateSize() {
+            return pending.isEmpty() && leafA == null ? 0 : Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return NONNULL;
+        }
+    }
+}
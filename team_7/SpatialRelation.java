@@ -0,0 +1,59 @@
+package org.dfpl.dbp.rtree.team_7;
+
+/**
+ * RectangleRTree 범위 검색에서 엔트리 사각형과 질의 사각형 사이에 요구하는 관계. (모두 경계 포함)
+ */
+public enum SpatialRelation {
+
+    /**
+     * 엔트리가 질의 사각형과 조금이라도 겹친다.
+     */
+    INTERSECTS {
+        @Override
+        boolean matches(Rectangle entry, Rectangle query) {
+            return entry.intersects(query);
+        }
+
+        @Override
+        boolean mayMatchInside(Rectangle nodeMbr, Rectangle query) {
+            return nodeMbr.intersects(query);
+        }
+    },
+
+    /**
+     * 엔트리가 질의 사각형을 통째로 포함한다. (예: 이 점 / 영역을 덮는 건물)
+     * 노드 MBR이 질의를 포함하지 않으면 그 아래 어떤 엔트리도 포함할 수 없으므로 가지치기한다.
+     */
+    CONTAINS {
+        @Override
+        boolean matches(Rectangle entry, Rectangle query) {
+            return entry.contains(query);
+        }
+
+        @Override
+        boolean mayMatchInside(Rectangle nodeMbr, Rectangle query) {
+            return nodeMbr.contains(query);
+        }
+    },
+
+    /**
+     * 엔트리가 질의 사각형 안에 통째로 들어간다.
+     */
+    WITHIN {
+        @Override
+        boolean matches(Rectangle entry, Rectangle query) {
+            return query.contains(entry);
+        }
+
+        @Override
+        boolean mayMatchInside(Rectangle nodeMbr, Rectangle query) {
+            return nodeMbr.intersects(query);
+        }
+    };
+
+    // 엔트리 사각형이 조건을 만족하는지
+    abstract boolean matches(Rectangle entry, Rectangle query);
+
+    // MBR이 nodeMbr인 서브트리 안에 조건을 만족하는 엔트리가 있을 수 있는지 (false면 가지치기)
+    abstract boolean mayMatchInside(Rectangle nodeMbr, Rectangle query);
+}
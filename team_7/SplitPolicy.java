@@ -0,0 +1,21 @@
+package org.dfpl.dbp.rtree.team_7;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * overflow된 노드의 엔트리들을 두 그룹으로 나누는 분할 전략.
+ * 리프(Point)와 내부 노드(RTreeNode)가 같은 전략을 쓰도록 엔트리 타입과 무관하게 MBR만 보고 나눈다.
+ */
+public interface SplitPolicy {
+
+    /**
+     * entries를 두 그룹으로 나눕니다. 각 그룹은 최소 minEntries개의 엔트리를 갖습니다.
+     *
+     * @param entries    overflow된 노드의 엔트리 (maxEntries + 1개)
+     * @param rectOf     엔트리의 MBR (Point는 크기 0인 사각형)
+     * @param minEntries 그룹당 최소 엔트리 수
+     * @return 두 개의 그룹 (0번 그룹은 기존 노드, 1번 그룹은 새 노드에 들어간다)
+     */
+    <T> List<List<T>> split(List<T> entries, Function<T, Rectangle> rectOf, int minEntries);
+}
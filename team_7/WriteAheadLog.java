@@ -0,0 +1,137 @@
+package org.dfpl.dbp.rtree.team_7;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * DurableRTree가 쓰는 append-only 로그.
+ *
+ * 레코드 하나는 [type(1) | x(8) | y(8) | crc32(4)] 고정 21바이트 (little endian).
+ * append는 메모리 버퍼에만 쌓고, commit에서 버퍼를 한 번에 쓰고 fsync 한다 (group commit).
+ * 재생할 때는 길이가 모자라거나 crc가 맞지 않는 레코드를 만나면 거기서 멈추고 뒤를 잘라낸다.
+ */
+final class WriteAheadLog implements AutoCloseable {
+
+    static final byte INSERT = 1;
+    static final byte DELETE = 2;
+
+    private static final int RECORD_SIZE = 21;
+    private static final int CRC_OFFSET = 17;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final CRC32 crc = new CRC32();
+
+    // 버퍼에 쌓였지만 아직 fsync 되지 않은 레코드 수
+    private int pending;
+
+    WriteAheadLog(Path file, int groupCommitSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = ByteBuffer.allocate(groupCommitSize * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // ======================================================================
+    //  Append / Commit
+
+    /**
+     * 레코드를 버퍼에 추가합니다. 버퍼가 가득 차면 그 자리에서 commit 한다.
+     */
+    void append(byte type, double x, double y) throws IOException {
+        if (buffer.remaining() < RECORD_SIZE) {
+            commit();
+        }
+        int start = buffer.position();
+        buffer.put(type).putDouble(x).putDouble(y);
+
+        crc.reset();
+        crc.update(buffer.array(), start, CRC_OFFSET);
+        buffer.putInt((int) crc.getValue());
+        pending++;
+    }
+
+    /**
+     * 쌓인 레코드를 파일 끝에 쓰고 fsync 합니다. 반환 후에는 지금까지의 변경이 모두 durable 하다.
+     */
+    void commit() throws IOException {
+        if (pending == 0) return;
+
+        buffer.flip();
+        long position = channel.size();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        channel.force(false);
+        buffer.clear();
+        pending = 0;
+    }
+
+    int pending() {
+        return pending;
+    }
+
+    // ======================================================================
+    //  Replay / Reset
+
+    /**
+     * 파일의 유효한 레코드를 앞에서부터 넘겨주고, 깨진 꼬리는 잘라냅니다.
+     *
+     * @return 재생한 레코드 수
+     */
+    long replay(BiConsumer<Byte, Point> apply) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        long size = channel.size();
+        long position = 0;
+        long count = 0;
+
+        while (position + RECORD_SIZE <= size) {
+            record.clear();
+            while (record.hasRemaining()) {
+                if (channel.read(record, position + record.position()) < 0) break;
+            }
+
+            crc.reset();
+            crc.update(record.array(), 0, CRC_OFFSET);
+            byte type = record.get(0);
+            if (record.hasRemaining() || record.getInt(CRC_OFFSET) != (int) crc.getValue()
+                    || (type != INSERT && type != DELETE)) {
+                break;
+            }
+
+            apply.accept(type, new Point(record.getDouble(1), record.getDouble(9)));
+            position += RECORD_SIZE;
+            count++;
+        }
+
+        // 마지막으로 온전히 쓰인 레코드 뒤는 버린다 (쓰다 만 레코드)
+        if (position < size) {
+            channel.truncate(position);
+            channel.force(false);
+        }
+        return count;
+    }
+
+    /**
+     * 체크포인트가 끝난 뒤 로그를 비웁니다.
+     */
+    void reset() throws IOException {
+        commit();
+        channel.truncate(0);
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            commit();
+        } finally {
+            channel.close();
+        }
+    }
+}